@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.reactivestreams.impl.CodecReadStream;
+import io.vertx.ext.reactivestreams.impl.CodecWriteStream;
+import io.vertx.ext.reactivestreams.impl.ZipCodec;
+
+/**
+ * Streaming compression stages for buffer streams, e.g. a {@link ReactiveReadStream} or a {@link ReactiveWriteStream}.
+ * <p>
+ * The stages compress or decompress incrementally and emit chunks of a target size, so memory stays bounded
+ * whatever the size of the payload. Deflaters and inflaters are pooled and reused across streams.
+ */
+public final class Compression {
+
+  /**
+   * The compression formats.
+   */
+  public enum Format {
+
+    /**
+     * The gzip format (RFC 1952).
+     */
+    GZIP,
+
+    /**
+     * The zlib format (RFC 1950), known as {@code deflate} in HTTP.
+     */
+    DEFLATE
+
+  }
+
+  /**
+   * Default size of the chunks emitted by the stages.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+  private Compression() {
+  }
+
+  /**
+   * Wrap a write stream so the buffers written are compressed before being written to {@code stream}.
+   * <p>
+   * The compressed data is flushed when the returned stream is ended, back pressure is the one of {@code stream}.
+   *
+   * @param stream  the stream receiving the compressed data
+   * @param format  the compression format
+   * @param chunkSize  the size of the chunks written to {@code stream}
+   * @return the stream accepting the uncompressed data
+   */
+  public static WriteStream<Buffer> compress(WriteStream<Buffer> stream, Format format, int chunkSize) {
+    return new CodecWriteStream(stream, ZipCodec.compressor(format == Format.GZIP, chunkSize));
+  }
+
+  /**
+   * Wrap a write stream so the buffers written are decompressed before being written to {@code stream}.
+   *
+   * @param stream  the stream receiving the decompressed data
+   * @param format  the compression format
+   * @param chunkSize  the size of the chunks written to {@code stream}
+   * @return the stream accepting the compressed data
+   */
+  public static WriteStream<Buffer> decompress(WriteStream<Buffer> stream, Format format, int chunkSize) {
+    return new CodecWriteStream(stream, ZipCodec.decompressor(format == Format.GZIP, chunkSize));
+  }
+
+  /**
+   * Wrap a read stream so its buffers are compressed, the demand of the returned stream is expressed in chunks.
+   *
+   * @param stream  the stream emitting the uncompressed data
+   * @param format  the compression format
+   * @param chunkSize  the size of the emitted chunks
+   * @return the stream emitting the compressed data
+   */
+  public static ReadStream<Buffer> compress(ReadStream<Buffer> stream, Format format, int chunkSize) {
+    return new CodecReadStream(stream, ZipCodec.compressor(format == Format.GZIP, chunkSize));
+  }
+
+  /**
+   * Wrap a read stream so its buffers are decompressed, the demand of the returned stream is expressed in chunks.
+   *
+   * @param stream  the stream emitting the compressed data
+   * @param format  the compression format
+   * @param chunkSize  the size of the emitted chunks
+   * @return the stream emitting the decompressed data
+   */
+  public static ReadStream<Buffer> decompress(ReadStream<Buffer> stream, Format format, int chunkSize) {
+    return new CodecReadStream(stream, ZipCodec.decompressor(format == Format.GZIP, chunkSize));
+  }
+}
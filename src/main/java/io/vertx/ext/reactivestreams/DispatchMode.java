@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+/**
+ * How a {@link ReactiveWriteStream} dispatches the elements written to its subscribers.
+ */
+public enum DispatchMode {
+
+  /**
+   * Each element is delivered to all the subscribers, once they all have requested it.
+   */
+  BROADCAST,
+
+  /**
+   * Each element is delivered to a single subscriber, the subscribers with demand take turns.
+   */
+  ROUND_ROBIN,
+
+  /**
+   * Each element is delivered to a single subscriber, the subscriber with the most outstanding demand.
+   */
+  MOST_DEMAND
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.impl.FilePublisherImpl;
+
+/**
+ * A reactive streams publisher of the content of a file.
+ * <p>
+ * Each subscriber opens the file and receives its content as a sequence of chunks, the file is read at the
+ * position of the next chunk as the subscriber requests more items. Subscribers of {@link #from(long)} start
+ * reading at the given offset.
+ */
+public interface FilePublisher extends ResumablePublisher {
+
+  /**
+   * Default chunk size
+   */
+  int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Default read ahead
+   */
+  int DEFAULT_READ_AHEAD = 2;
+
+  /**
+   * Create a file publisher
+   *
+   * @param vertx  the Vert.x instance
+   * @param path  the file path
+   * @return the publisher
+   */
+  static FilePublisher publisher(Vertx vertx, String path) {
+    return new FilePublisherImpl(vertx, path);
+  }
+
+  /**
+   * Set the size of the chunks emitted by this publisher, the last chunk can be smaller.
+   *
+   * @param chunkSize  the chunk size in bytes
+   * @return a reference to this for a fluent API
+   */
+  FilePublisher setChunkSize(int chunkSize);
+
+  /**
+   * Set the maximum number of chunks read ahead of the subscriber, including the reads in progress.
+   *
+   * @param readAhead  the number of chunks
+   * @return a reference to this for a fluent API
+   */
+  FilePublisher setReadAhead(int readAhead);
+
+  /**
+   * Set whether the file is memory mapped instead of read. Chunks are then slices of the mapped region and are not
+   * copied to the heap, the read ahead is left to the operating system.
+   *
+   * @param memoryMapped  {@code true} to map the file
+   * @return a reference to this for a fluent API
+   */
+  FilePublisher setMemoryMapped(boolean memoryMapped);
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds, safe for concurrent recording.
+ * <p>
+ * Values are counted in log-linear buckets: each power of two range is split in 32 linear buckets, so the
+ * reported values have a relative precision of about 3% over the whole range with a fixed footprint.
+ * The values are read independently of each other and might not be mutually consistent while recording.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+  private static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  private static int index(long value) {
+    int msb = 63 - Long.numberOfLeadingZeros(value);
+    if (msb < SUB_BUCKET_BITS) {
+      return (int) value;
+    }
+    int shift = msb - SUB_BUCKET_BITS + 1;
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * @return the highest value counted in the bucket at {@code index}
+   */
+  private static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / HALF_SUB_BUCKETS - 1;
+    long mantissa = index - shift * HALF_SUB_BUCKETS;
+    return ((mantissa + 1) << shift) - 1;
+  }
+
+  /**
+   * Record a value, a negative value is recorded as {@code 0}.
+   *
+   * @param nanos  the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    long value = Math.max(0L, nanos);
+    counts.incrementAndGet(index(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * @return the number of recorded values
+   */
+  public long count() {
+    return count.get();
+  }
+
+  /**
+   * @return the highest recorded value in nanoseconds
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * @return the mean of the recorded values in nanoseconds, {@code 0} when no value has been recorded
+   */
+  public double mean() {
+    long n = count.get();
+    return n == 0L ? 0D : (double) sum.get() / n;
+  }
+
+  /**
+   * Compute the value at a percentile: the reported value is the highest value equivalent to the recorded values
+   * at or below the percentile, within the histogram precision.
+   *
+   * @param percentile  the percentile, between {@code 0} and {@code 100}
+   * @return the value in nanoseconds, {@code 0} when no value has been recorded
+   */
+  public long valueAtPercentile(double percentile) {
+    if (percentile < 0D || percentile > 100D) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+    long total = 0L;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0L) {
+      return 0L;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(percentile / 100D * total));
+    long seen = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Clear the recorded values.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0L);
+    }
+    count.set(0L);
+    sum.set(0L);
+    max.set(0L);
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram[count=" + count() + ", mean=" + TimeUnit.NANOSECONDS.toMicros((long) mean())
+      + "us, p50=" + TimeUnit.NANOSECONDS.toMicros(valueAtPercentile(50D))
+      + "us, p99=" + TimeUnit.NANOSECONDS.toMicros(valueAtPercentile(99D))
+      + "us, max=" + TimeUnit.NANOSECONDS.toMicros(max()) + "us]";
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.impl.CollectingSubscriber;
+import io.vertx.ext.reactivestreams.impl.FramingPublisher;
+import io.vertx.ext.reactivestreams.impl.PublishOnPublisher;
+import io.vertx.ext.reactivestreams.impl.SubscribeOnPublisher;
+import org.reactivestreams.Publisher;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Operators composing reactive streams publishers.
+ */
+public final class Publishers {
+
+  private Publishers() {
+  }
+
+  /**
+   * Frame the buffers of a publisher into records separated by a delimiter, the delimiter is not part of the records.
+   * <p>
+   * Each subscriber subscribes to {@code source}, demand is expressed in records. The bytes following the last
+   * delimiter are emitted as a last record when the source completes, a record longer than {@code maxRecordSize}
+   * fails the subscription.
+   *
+   * @param source  the publisher of buffers
+   * @param delimiter  the delimiter, e.g. {@code "\n"}
+   * @param maxRecordSize  the maximum size of a record
+   * @return the publisher of records
+   */
+  public static Publisher<Buffer> delimited(Publisher<Buffer> source, Buffer delimiter, int maxRecordSize) {
+    return new FramingPublisher(Objects.requireNonNull(source), Objects.requireNonNull(delimiter), maxRecordSize);
+  }
+
+  /**
+   * Like {@link #delimited(Publisher, Buffer, int)} with a string delimiter.
+   */
+  public static Publisher<Buffer> delimited(Publisher<Buffer> source, String delimiter, int maxRecordSize) {
+    return delimited(source, Buffer.buffer(delimiter), maxRecordSize);
+  }
+
+  /**
+   * Frame the buffers of a publisher into records prefixed by their length as a 4 bytes big endian integer,
+   * the length prefix is not part of the records.
+   * <p>
+   * Each subscriber subscribes to {@code source}, demand is expressed in records. A truncated last record or a record
+   * longer than {@code maxRecordSize} fails the subscription.
+   *
+   * @param source  the publisher of buffers
+   * @param maxRecordSize  the maximum size of a record
+   * @return the publisher of records
+   */
+  public static Publisher<Buffer> lengthPrefixed(Publisher<Buffer> source, int maxRecordSize) {
+    return new FramingPublisher(Objects.requireNonNull(source), null, maxRecordSize);
+  }
+
+  /**
+   * Signal the elements of a publisher to its subscribers on {@code context}, e.g. a worker context running
+   * a CPU intensive stage.
+   * <p>
+   * Each subscription prefetches up to {@code prefetch} elements from {@code source} and replenishes them as they
+   * are consumed. The elements are handed over in batches: a single context task delivers all the prefetched
+   * elements the subscriber has requested.
+   *
+   * @param source  the publisher
+   * @param context  the context signalling the subscribers
+   * @param prefetch  the number of elements prefetched
+   * @return the publisher signalling on {@code context}
+   */
+  public static <T> Publisher<T> publishOn(Publisher<T> source, Context context, int prefetch) {
+    return new PublishOnPublisher<>(source, context, prefetch);
+  }
+
+  /**
+   * Subscribe to a publisher and request its elements on {@code context}, the publisher signals its subscribers
+   * from the thread it emits on.
+   * <p>
+   * The requests made before the context processes them are coalesced.
+   *
+   * @param source  the publisher
+   * @param context  the context subscribing to and requesting {@code source}
+   * @return the publisher subscribed on {@code context}
+   */
+  public static <T> Publisher<T> subscribeOn(Publisher<T> source, Context context) {
+    return new SubscribeOnPublisher<>(source, context);
+  }
+
+  /**
+   * Collect the buffers of a publisher into a single buffer, all the buffers are requested at once.
+   * <p>
+   * When {@code expectedSize} is {@code 0} the buffers are assembled in a composite buffer without being copied,
+   * the publisher must not modify them afterwards. Otherwise they are copied to a buffer allocated with this
+   * initial capacity capped at {@code maxSize}, the buffer grows when the publisher exceeds it.
+   * <p>
+   * When more than {@code maxSize} bytes are published the subscription is cancelled and the future fails.
+   *
+   * @param source  the publisher of buffers
+   * @param expectedSize  the expected size in bytes or {@code 0} when unknown
+   * @param maxSize  the maximum size in bytes
+   * @return the future of the collected buffer
+   */
+  public static Future<Buffer> collect(Publisher<Buffer> source, int expectedSize, int maxSize) {
+    CollectingSubscriber<Buffer, Buffer> collector = CollectingSubscriber.buffer(expectedSize, maxSize);
+    source.subscribe(collector);
+    return collector.future();
+  }
+
+  /**
+   * Collect the elements of a publisher into a list, all the elements are requested at once.
+   * <p>
+   * When more than {@code maxSize} elements are published the subscription is cancelled and the future fails.
+   *
+   * @param source  the publisher
+   * @param expectedSize  the expected number of elements, used as the initial capacity of the list capped at
+   *                      {@code maxSize}
+   * @param maxSize  the maximum number of elements
+   * @return the future of the collected list
+   */
+  public static <T> Future<List<T>> collectList(Publisher<T> source, int expectedSize, int maxSize) {
+    CollectingSubscriber<T, List<T>> collector = CollectingSubscriber.list(expectedSize, maxSize);
+    source.subscribe(collector);
+    return collector.future();
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+import io.vertx.ext.reactivestreams.impl.MapProcessorImpl;
+import org.reactivestreams.Processor;
+
+import java.util.function.Function;
+
+/**
+ * A reactive streams processor transforming the elements it receives.
+ *
+ * @param <T> the type of the elements received
+ * @param <R> the type of the elements published
+ */
+public interface ReactiveProcessor<T, R> extends Processor<T, R> {
+
+  /**
+   * Create a processor applying a function to each element, inline on the thread signalling the element.
+   * <p>
+   * The processor accepts a single subscriber, demand and cancellation are passed straight through to the upstream
+   * subscription: there is no queue between the two subscriptions. A function failure cancels the upstream
+   * subscription and fails the subscriber.
+   *
+   * @param mapper  the function, it must not return {@code null}
+   * @return the processor
+   */
+  static <T, R> ReactiveProcessor<T, R> processor(Function<? super T, ? extends R> mapper) {
+    return new MapProcessorImpl<>(mapper);
+  }
+
+}
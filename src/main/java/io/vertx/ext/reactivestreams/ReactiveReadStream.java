@@ -16,13 +16,28 @@
 
 package io.vertx.ext.reactivestreams;
 
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.reactivestreams.impl.CoalescingReadStreamImpl;
+import io.vertx.ext.reactivestreams.impl.ConcatReadStreamImpl;
+import io.vertx.ext.reactivestreams.impl.MergeReadStreamImpl;
+import io.vertx.ext.reactivestreams.impl.PartitionStage;
 import io.vertx.ext.reactivestreams.impl.ReactiveReadStreamImpl;
+import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
 /**
  * A Vert.x read stream that also implements reactive streams subscriber interface.
+ * <p>
+ * The completion of the publisher is signalled to the end handler once the pending elements have been handled.
+ * A failure is signalled to the exception handler immediately, so a paused stream does not have to be drained to
+ * learn about it, the pending elements are still handled when the stream is resumed.
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -52,6 +67,110 @@ public interface ReactiveReadStream<T> extends ReadStream<T>, Subscriber<T> {
     return new ReactiveReadStreamImpl<>(batchSize);
   }
 
+  /**
+   * Create a reactive read stream that requests {@code prefetch} elements as soon as it is subscribed, instead of
+   * waiting for a handler to be set.
+   * <p>
+   * The prefetched elements are held until a handler is set, this saves a round trip to the publisher before the
+   * first element is handled, e.g. when the stream is subscribed before being piped. Subsequent elements are
+   * requested by batches of {@code batchSize}.
+   *
+   * @param batchSize  the batch size
+   * @param prefetch  the number of elements requested on subscription, {@code 0} to request when a handler is set
+   * @return the stream
+   */
+  static <T> ReactiveReadStream<T> readStream(long batchSize, long prefetch) {
+    return new ReactiveReadStreamImpl<>(batchSize, prefetch);
+  }
+
+  /**
+   * Create a reactive read stream of buffers that coalesces the buffers it has queued.
+   * <p>
+   * When the stream is resumed with several buffers received while it was paused, up to {@code maxCoalesce}
+   * of them are handled as a single composite buffer, e.g. piping to a socket then performs a single gathering
+   * write and flush. The stream never queues more than {@code batchSize} buffers.
+   *
+   * @param batchSize  the batch size
+   * @param maxCoalesce  the maximum number of buffers handled as a single buffer
+   * @return the stream
+   */
+  static ReactiveReadStream<Buffer> coalescingReadStream(long batchSize, int maxCoalesce) {
+    return new CoalescingReadStreamImpl(batchSize, maxCoalesce);
+  }
+
+  /**
+   * Like {@link #merge(List, List, long)} with the same weight for all the publishers.
+   *
+   * @param publishers  the publishers to merge
+   * @param prefetch  the number of elements prefetched from each publisher
+   * @return the stream
+   */
+  static <T> ReadStream<T> merge(List<? extends Publisher<? extends T>> publishers, long prefetch) {
+    return new MergeReadStreamImpl<>(publishers, Collections.nCopies(publishers.size(), 1), prefetch);
+  }
+
+  /**
+   * Create a read stream merging the elements of several publishers.
+   * <p>
+   * Each publisher is subscribed immediately and requested {@code prefetch} elements. While the stream flows, more
+   * elements are requested as the prefetched elements are consumed; otherwise the elements fetched are requested from
+   * the publishers split by weight, each publisher holding at most {@code prefetch} queued and requested elements.
+   * Publishers having elements available are served in weighted round
+   * robin: a publisher delivers up to its weight consecutive elements before the next publisher is served, so a
+   * busy publisher cannot starve the others.
+   * <p>
+   * The stream ends when all the publishers have completed and fails as soon as a publisher fails, the other
+   * subscriptions are then cancelled.
+   *
+   * @param publishers  the publishers to merge
+   * @param weights  the weights of the publishers
+   * @param prefetch  the number of elements prefetched from each publisher
+   * @return the stream
+   */
+  static <T> ReadStream<T> merge(List<? extends Publisher<? extends T>> publishers, List<Integer> weights, long prefetch) {
+    return new MergeReadStreamImpl<>(publishers, weights, prefetch);
+  }
+
+  /**
+   * Create a read stream concatenating the elements of several publishers, in order.
+   * <p>
+   * The publisher being read and up to {@code maxConcurrency - 1} next publishers are subscribed and requested
+   * {@code prefetch} elements, so the next publishers deliver their first elements while the current one drains
+   * and no gap occurs when switching to the next publisher. Only the publisher being read is requested more
+   * elements as its prefetched elements are consumed.
+   * <p>
+   * The stream ends when the last publisher has completed and fails as soon as a subscribed publisher fails,
+   * the other subscriptions are then cancelled.
+   *
+   * @param publishers  the publishers to concatenate
+   * @param maxConcurrency  the maximum number of publishers subscribed at once, {@code 1} subscribes the next
+   *                        publisher when the current one completes
+   * @param prefetch  the number of elements prefetched from each publisher
+   * @return the stream
+   */
+  static <T> ReadStream<T> concat(List<? extends Publisher<? extends T>> publishers, int maxConcurrency, long prefetch) {
+    return new ConcatReadStreamImpl<>(publishers, maxConcurrency, prefetch);
+  }
+
+  /**
+   * Partition the elements of a stream by key, e.g. a {@link ReactiveReadStream} subscribed to a publisher.
+   * <p>
+   * Elements are routed by the hash of their key to one partition per context, each partition emits its elements
+   * on its context, in order, with its own back pressure. A partition queues up to {@code queueSize} elements: the
+   * source is paused only when the partition an element is routed to is full, the other partitions keep draining.
+   * <p>
+   * The end and the failure of the source are signalled to all the partitions.
+   *
+   * @param source  the source stream
+   * @param keyMapper  the function extracting the key of an element
+   * @param contexts  the contexts of the partitions
+   * @param queueSize  the maximum number of elements queued by a partition
+   * @return the partitions, in the order of the contexts
+   */
+  static <T> List<ReadStream<T>> partition(ReadStream<T> source, Function<? super T, ?> keyMapper, List<Context> contexts, int queueSize) {
+    return new PartitionStage<>(source, keyMapper, contexts, queueSize).partitions();
+  }
+
   @Override
   ReactiveReadStream<T> exceptionHandler(Handler<Throwable> handler);
 
@@ -66,4 +185,40 @@ public interface ReactiveReadStream<T> extends ReadStream<T>, Subscriber<T> {
 
   @Override
   ReactiveReadStream<T> endHandler(Handler<Void> endHandler);
+
+  /**
+   * Set a handler releasing the elements this stream drops, i.e. the elements received while no handler is set.
+   * <p>
+   * This is useful when elements are pooled.
+   *
+   * @param handler  the handler
+   * @return a reference to this for a fluent API
+   */
+  ReactiveReadStream<T> releaseHandler(Handler<T> handler);
+
+  /**
+   * Set a tracer receiving the back pressure events of this stream.
+   *
+   * @param tracer  the tracer or {@code null} to stop tracing
+   * @return a reference to this for a fluent API
+   */
+  ReactiveReadStream<T> tracer(StreamTracer tracer);
+
+  /**
+   * Set a histogram recording the latency from the reception of an element by {@code onNext} to its handling,
+   * i.e. the time the element waited for the stream to be resumed. One received element out of
+   * {@code sampleRate} is timed, the elements received while a timed element is pending are not timed.
+   *
+   * @param histogram  the histogram or {@code null} to stop recording
+   * @param sampleRate  the sampling rate, {@code 1} times every element
+   * @return a reference to this for a fluent API
+   */
+  ReactiveReadStream<T> latencyHistogram(LatencyHistogram histogram, int sampleRate);
+
+  /**
+   * Take a snapshot of the state of this stream, this can be called from any thread and does not block.
+   *
+   * @return the stats
+   */
+  ReadStreamStats stats();
 }
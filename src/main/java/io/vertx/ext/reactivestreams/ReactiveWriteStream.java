@@ -20,10 +20,15 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.reactivestreams.impl.FileOverflow;
 import io.vertx.ext.reactivestreams.impl.ReactiveWriteStreamImpl;
 import org.reactivestreams.Publisher;
 
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
 /**
  * A Vert.x write stream that also implements reactive streams publisher interface.
  *
@@ -47,6 +52,25 @@ public interface ReactiveWriteStream<T> extends WriteStream<T>, Publisher<T> {
     return new ReactiveWriteStreamImpl<>(vertx);
   }
 
+  /**
+   * Create a reactive write stream of buffers that spills its pending buffers to an overflow file.
+   * <p>
+   * Up to {@code memoryThreshold} pending buffers are kept in memory, subsequent buffers are appended to a temporary
+   * file created in {@code overflowDir} and replayed in order when subscribers request more items. Spilled writes
+   * complete once they are stored. The write queue max size accounts for the buffers of both tiers.
+   * <p>
+   * The file is accessed on a worker thread, it is created when the stream first overflows and deleted when the
+   * stream is closed. A failure to store or read back a buffer fails the subscribers and closes the stream.
+   *
+   * @param vertx  the Vert.x instance
+   * @param overflowDir  the directory of the overflow file
+   * @param memoryThreshold  the maximum number of pending buffers kept in memory
+   * @return the stream
+   */
+  static ReactiveWriteStream<Buffer> writeStream(Vertx vertx, String overflowDir, int memoryThreshold) {
+    return new ReactiveWriteStreamImpl<>(vertx, ctx -> new FileOverflow(ctx, overflowDir, memoryThreshold));
+  }
+
   @Override
   ReactiveWriteStream<T> exceptionHandler(Handler<Throwable> handler);
 
@@ -59,6 +83,116 @@ public interface ReactiveWriteStream<T> extends WriteStream<T>, Publisher<T> {
   @Override
   ReactiveWriteStream<T> drainHandler(Handler<Void> handler);
 
+  /**
+   * Set a handler releasing the elements this stream drops: the pending elements when the stream is closed or has
+   * no subscribers anymore, the elements written after that and the buffers spilled to the overflow file.
+   * <p>
+   * This is useful when elements are pooled, the handler can be called from any thread.
+   *
+   * @param handler  the handler
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> releaseHandler(Handler<T> handler);
+
+  /**
+   * Set whether the {@link #releaseHandler(Handler) release handler} is also called once an element has been
+   * delivered to all the subscribers, in which case subscribers must not retain the elements after {@code onNext}.
+   *
+   * @param releaseAfterDelivery  {@code true} to release delivered elements
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> setReleaseAfterDelivery(boolean releaseAfterDelivery);
+
+  /**
+   * Set a handler called when the last subscriber of this stream cancels its subscription or fails, and no new
+   * subscriber subscribes within the {@link #setNoSubscriberTimeout(long) timeout}.
+   * <p>
+   * When the handler is called the pending writes are failed and the subsequent writes fail until a new subscriber
+   * subscribes: a pipe feeding this stream stops, the handler can close or pause the source.
+   *
+   * @param handler  the handler
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> noSubscriberHandler(Handler<Void> handler);
+
+  /**
+   * Set the grace period given to a new subscriber before the {@link #noSubscriberHandler(Handler) no subscriber handler}
+   * is called, {@code 0} by default.
+   *
+   * @param timeout  the timeout in milliseconds
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> setNoSubscriberTimeout(long timeout);
+
+  /**
+   * Set a key extractor enabling conflation: a value written while an older value with the same key is pending
+   * replaces it in the pending queue, so slow subscribers get the latest value per key. A constant key keeps
+   * only the latest value.
+   * <p>
+   * The pending queue is bounded by the number of distinct keys: the writes complete immediately and
+   * {@link #writeQueueFull()} returns {@code false}. The superseded values are passed to the
+   * {@link #releaseHandler(Handler) release handler}.
+   * <p>
+   * This must be set before writing and cannot be combined with an overflow file.
+   *
+   * @param keyExtractor  the function extracting the key of a value, {@code null} disables conflation
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> setConflationKey(Function<? super T, ?> keyExtractor);
+
+  /**
+   * Set how the elements written are dispatched to the subscribers, {@link DispatchMode#BROADCAST} by default.
+   * <p>
+   * With {@link DispatchMode#ROUND_ROBIN} or {@link DispatchMode#MOST_DEMAND} the subscribers compete for the
+   * elements, each element is delivered to a single subscriber with outstanding demand.
+   * <p>
+   * The subscribers are still signalled on the stream context, one at a time: competing subscribers only process
+   * the elements in parallel when they hand them off to other threads, or with a
+   * {@link #setDeliveryExecutor(Executor) delivery executor}.
+   *
+   * @param mode  the dispatch mode
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> setDispatchMode(DispatchMode mode);
+
+  /**
+   * Set an executor signalling the subsequent subscribers instead of the stream context, this is useful for
+   * subscribers blocking in {@code onNext}, e.g. with a virtual thread per task executor.
+   * <p>
+   * Each subscription is signalled sequentially, a single executor task delivers all the elements granted to
+   * the subscription and available at that time. Demand is still governed by {@code request(n)}.
+   *
+   * @param executor  the executor or {@code null} to signal subscribers on the stream context
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> setDeliveryExecutor(Executor executor);
+
+  /**
+   * Set a tracer receiving the back pressure events of this stream.
+   *
+   * @param tracer  the tracer or {@code null} to stop tracing
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> tracer(StreamTracer tracer);
+
+  /**
+   * Set a histogram recording the latency from the write of an element to its delivery to each subscriber,
+   * i.e. the time the element waited for demand and for the context. One written element out of {@code sampleRate}
+   * is timed, the elements replayed from an overflow file and the conflated values are not timed.
+   *
+   * @param histogram  the histogram or {@code null} to stop recording
+   * @param sampleRate  the sampling rate, {@code 1} times every element
+   * @return a reference to this for a fluent API
+   */
+  ReactiveWriteStream<T> latencyHistogram(LatencyHistogram histogram, int sampleRate);
+
+  /**
+   * Take a snapshot of the state of this stream, this can be called from any thread and does not block.
+   *
+   * @return the stats
+   */
+  WriteStreamStats stats();
+
   /**
    * Close the stream
    *
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+/**
+ * A snapshot of the state of a {@link ReactiveReadStream}.
+ * <p>
+ * The values are read independently of each other and might not be mutually consistent.
+ */
+public final class ReadStreamStats {
+
+  private final int pending;
+  private final long demand;
+  private final long requested;
+  private final long delivered;
+
+  public ReadStreamStats(int pending, long demand, long requested, long delivered) {
+    this.pending = pending;
+    this.demand = demand;
+    this.requested = requested;
+    this.delivered = delivered;
+  }
+
+  /**
+   * @return the number of received elements waiting for the stream to be resumed
+   */
+  public int pending() {
+    return pending;
+  }
+
+  /**
+   * @return the current demand, {@link Long#MAX_VALUE} when the stream is flowing
+   */
+  public long demand() {
+    return demand;
+  }
+
+  /**
+   * @return the number of elements requested from the publisher and not yet handled, pending elements included
+   */
+  public long requested() {
+    return requested;
+  }
+
+  /**
+   * @return the total number of elements handled by the stream
+   */
+  public long delivered() {
+    return delivered;
+  }
+
+  /**
+   * @return whether the stream is paused
+   */
+  public boolean paused() {
+    return demand == 0L;
+  }
+
+  @Override
+  public String toString() {
+    return "ReadStreamStats[pending=" + pending + ", demand=" + demand + ", requested=" + requested + ", delivered=" + delivered + "]";
+  }
+}
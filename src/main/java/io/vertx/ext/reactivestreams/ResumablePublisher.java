@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams;
+
+import io.vertx.core.buffer.Buffer;
+import org.reactivestreams.Publisher;
+
+/**
+ * A publisher of buffers whose subscribers can resume from a byte offset, e.g. after a transient failure of a
+ * consumer that kept track of the number of bytes it received.
+ */
+public interface ResumablePublisher extends Publisher<Buffer> {
+
+  /**
+   * Create a publisher whose subscribers receive the content of this publisher starting at {@code offset}.
+   *
+   * @param offset  the offset of the first byte to publish
+   * @return the publisher
+   */
+  Publisher<Buffer> from(long offset);
+
+}
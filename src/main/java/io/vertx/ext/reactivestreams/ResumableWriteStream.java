@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.impl.ResumableWriteStreamImpl;
+import org.reactivestreams.Publisher;
+
+/**
+ * A reactive write stream of buffers retaining a window of the last bytes dispatched, so a subscriber can resume
+ * from an offset within that window.
+ * <p>
+ * Offsets count the bytes written since the creation of the stream. The retained buffers are delivered again to
+ * resuming subscribers, they must not be released or modified. Elements are broadcast to the subscribers.
+ * <p>
+ * Retained buffers rule out {@link #setReleaseAfterDelivery(boolean) release after delivery}, a
+ * {@link #setDeliveryExecutor delivery executor} would reorder the backlog and the live buffers and conflated buffers
+ * have no offset, these settings are rejected.
+ */
+public interface ResumableWriteStream extends ReactiveWriteStream<Buffer>, ResumablePublisher {
+
+  /**
+   * Create a resumable write stream.
+   *
+   * @param vertx  the Vert.x instance
+   * @param retainedBytes  the minimum number of bytes retained
+   * @return the stream
+   */
+  static ResumableWriteStream writeStream(Vertx vertx, long retainedBytes) {
+    return new ResumableWriteStreamImpl(vertx, retainedBytes);
+  }
+
+  /**
+   * @return the number of bytes queued to this stream, writes failing because the stream is abandoned are not
+   *         counted
+   */
+  long offset();
+
+  /**
+   * Create a publisher whose subscribers first receive the retained bytes from {@code offset}, then the buffers
+   * written to this stream like any subscriber. A subscriber fails when {@code offset} is not retained anymore.
+   *
+   * @param offset  the offset of the first byte to publish
+   * @return the publisher
+   */
+  @Override
+  Publisher<Buffer> from(long offset);
+
+}
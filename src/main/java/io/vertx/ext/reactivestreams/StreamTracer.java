@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+import io.vertx.ext.reactivestreams.impl.JfrStreamTracer;
+import io.vertx.ext.reactivestreams.impl.SamplingStreamTracer;
+
+/**
+ * Receives the back pressure events of {@link ReactiveReadStream} and {@link ReactiveWriteStream} instances.
+ * <p>
+ * Events are reported synchronously from the thread performing the traced operation, often while holding the
+ * stream monitor: implementations must be thread safe and must not call back the stream.
+ */
+@FunctionalInterface
+public interface StreamTracer {
+
+  /**
+   * Back pressure events.
+   */
+  enum Event {
+
+    /**
+     * Elements have been requested from a publisher, the value is the number of elements.
+     */
+    REQUEST,
+
+    /**
+     * Elements have been delivered, the value is the number of elements.
+     */
+    DELIVER,
+
+    /**
+     * A read stream has been paused or a write stream queue has become full.
+     */
+    PAUSE,
+
+    /**
+     * A read stream has been resumed or fetched, the value is the fetched amount.
+     */
+    RESUME,
+
+    /**
+     * A write stream drain handler has been called.
+     */
+    DRAIN,
+
+    /**
+     * A subscription has been cancelled.
+     */
+    CANCEL
+
+  }
+
+  /**
+   * Report an event.
+   *
+   * @param stream  the stream reporting the event
+   * @param event  the event
+   * @param value  the event value, {@code 0} when the event has no value
+   * @param timestamp  the event {@link System#nanoTime()}
+   */
+  void trace(Object stream, Event event, long value, long timestamp);
+
+  /**
+   * Create a tracer reporting one {@link Event#DELIVER} event out of {@code rate} on average to {@code tracer},
+   * the other events are always reported.
+   *
+   * @param tracer  the sampled tracer
+   * @param rate  the sampling rate
+   * @return the tracer
+   */
+  static StreamTracer sampling(StreamTracer tracer, int rate) {
+    return new SamplingStreamTracer(tracer, rate);
+  }
+
+  /**
+   * Create a tracer committing the events to the JDK Flight Recorder as {@code io.vertx.reactivestreams.StreamEvent}
+   * events.
+   * <p>
+   * The {@code jdk.jfr} module is optional, when this module runs on the module path it must be resolved, e.g. with
+   * {@code --add-modules jdk.jfr}.
+   *
+   * @return the tracer
+   * @throws IllegalStateException when the {@code jdk.jfr} module is not available
+   */
+  static StreamTracer jfr() {
+    Module module = StreamTracer.class.getModule();
+    if (module.isNamed() && !module.getLayer().findModule("jdk.jfr").isPresent()) {
+      throw new IllegalStateException("The jdk.jfr module is not resolved");
+    }
+    return new JfrStreamTracer();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams;
+
+import java.util.List;
+
+/**
+ * A snapshot of the state of a {@link ReactiveWriteStream}.
+ * <p>
+ * The values are read independently of each other and might not be mutually consistent.
+ */
+public final class WriteStreamStats {
+
+  private final int pending;
+  private final long delivered;
+  private final boolean closed;
+  private final List<SubscriberStats> subscribers;
+
+  public WriteStreamStats(int pending, long delivered, boolean closed, List<SubscriberStats> subscribers) {
+    this.pending = pending;
+    this.delivered = delivered;
+    this.closed = closed;
+    this.subscribers = subscribers;
+  }
+
+  /**
+   * @return the number of written elements waiting for subscribers demand
+   */
+  public int pending() {
+    return pending;
+  }
+
+  /**
+   * @return the total number of elements taken from the write queue and sent to the subscribers
+   */
+  public long delivered() {
+    return delivered;
+  }
+
+  /**
+   * @return whether the stream is closed
+   */
+  public boolean closed() {
+    return closed;
+  }
+
+  /**
+   * @return the stats of the current subscribers
+   */
+  public List<SubscriberStats> subscribers() {
+    return subscribers;
+  }
+
+  @Override
+  public String toString() {
+    return "WriteStreamStats[pending=" + pending + ", delivered=" + delivered + ", closed=" + closed + ", subscribers=" + subscribers + "]";
+  }
+
+  /**
+   * The state of a subscription to the stream.
+   */
+  public static final class SubscriberStats {
+
+    private final long requested;
+    private final long delivered;
+
+    public SubscriberStats(long requested, long delivered) {
+      this.requested = requested;
+      this.delivered = delivered;
+    }
+
+    /**
+     * @return the number of elements requested by the subscriber and not yet sent
+     */
+    public long requested() {
+      return requested;
+    }
+
+    /**
+     * @return the number of elements sent to the subscriber
+     */
+    public long delivered() {
+      return delivered;
+    }
+
+    @Override
+    public String toString() {
+      return "SubscriberStats[requested=" + requested + ", delivered=" + delivered + "]";
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+
+/**
+ * A buffer read stream handling the buffers pending in its queue as a single composite buffer.
+ */
+public class CoalescingReadStreamImpl extends ReactiveReadStreamImpl<Buffer> {
+
+  private final int maxCoalesce;
+
+  public CoalescingReadStreamImpl(long batchSize, int maxCoalesce) {
+    super(batchSize);
+    if (maxCoalesce < 1) {
+      throw new IllegalArgumentException("maxCoalesce must be >= 1");
+    }
+    this.maxCoalesce = maxCoalesce;
+  }
+
+  @Override
+  void handlePending() {
+    int count = Math.min(pending.size(), maxCoalesce);
+    if (count < 2 || !hasHandler()) {
+      super.handlePending();
+      return;
+    }
+    CompositeByteBuf composite = Unpooled.compositeBuffer(count);
+    for (int i = 0; i < count; i++) {
+      composite.addComponent(true, ((BufferInternal) pending.poll()).getByteBuf());
+    }
+    handleData(BufferInternal.buffer(composite), count);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+
+/**
+ * A read stream passing the buffers of a source stream through a {@link ZipCodec}.
+ * <p>
+ * Demand is expressed in chunks emitted by the codec: the chunks a source buffer expands to in excess of the demand
+ * are queued and the source is paused until they have been fetched.
+ */
+public class CodecReadStream implements ReadStream<Buffer> {
+
+  private final ReadStream<Buffer> source;
+  private final ZipCodec codec;
+  private final ArrayDeque<Buffer> pending = new ArrayDeque<>();
+  private Handler<Buffer> dataHandler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+  private long demand = Long.MAX_VALUE;
+  private boolean ended;
+  private boolean terminated;
+
+  public CodecReadStream(ReadStream<Buffer> source, ZipCodec codec) {
+    this.source = source;
+    this.codec = codec;
+    source.endHandler(v -> handleEnd());
+    source.exceptionHandler(this::handleException);
+  }
+
+  @Override
+  public synchronized ReadStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<Buffer> handler(Handler<Buffer> handler) {
+    this.dataHandler = handler;
+    if (!terminated) {
+      source.handler(handler == null ? null : this::handleData);
+    }
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<Buffer> endHandler(Handler<Void> handler) {
+    this.endHandler = handler;
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<Buffer> pause() {
+    demand = 0L;
+    source.pause();
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<Buffer> resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public synchronized ReadStream<Buffer> fetch(long amount) {
+    if (amount > 0L) {
+      demand += amount;
+      if (demand < 0L) {
+        demand = Long.MAX_VALUE;
+      }
+      drain();
+      if (pending.isEmpty() && !ended && !terminated) {
+        source.resume();
+      }
+    }
+    return this;
+  }
+
+  private synchronized void handleData(Buffer data) {
+    if (terminated) {
+      return;
+    }
+    try {
+      codec.write(data, pending::add);
+    } catch (VertxException e) {
+      handleException(e);
+      return;
+    }
+    drain();
+    if (!pending.isEmpty()) {
+      source.pause();
+    }
+  }
+
+  private synchronized void handleEnd() {
+    if (terminated) {
+      return;
+    }
+    try {
+      codec.end(pending::add);
+    } catch (VertxException e) {
+      handleException(e);
+      return;
+    }
+    ended = true;
+    drain();
+  }
+
+  private synchronized void handleException(Throwable cause) {
+    if (terminated) {
+      return;
+    }
+    terminated = true;
+    // Stop the source, a codec failure does not terminate it
+    source.pause();
+    source.handler(null);
+    codec.release();
+    pending.clear();
+    if (exceptionHandler != null) {
+      exceptionHandler.handle(cause);
+    }
+  }
+
+  private void drain() {
+    while (demand > 0L && !pending.isEmpty() && dataHandler != null) {
+      if (demand != Long.MAX_VALUE) {
+        demand--;
+      }
+      dataHandler.handle(pending.poll());
+    }
+    if (ended && !terminated && pending.isEmpty()) {
+      terminated = true;
+      if (endHandler != null) {
+        endHandler.handle(null);
+      }
+    }
+  }
+}
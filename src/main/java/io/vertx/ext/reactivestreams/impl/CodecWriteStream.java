@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A write stream passing the buffers written through a {@link ZipCodec} before writing them to a delegate stream.
+ * <p>
+ * Back pressure is the one of the delegate: the chunks emitted while the write queue of the delegate is full are held
+ * until it drains, this stream is full meanwhile. A write completes once all the chunks it emitted are written.
+ * <p>
+ * A codec failure fails the write and the following ones, the delegate is then reset when it is an HTTP response and
+ * ended otherwise, so a piped destination does not hang.
+ */
+public class CodecWriteStream implements WriteStream<Buffer> {
+
+  private final WriteStream<Buffer> delegate;
+  private final ZipCodec codec;
+  // Chunks emitted while the delegate is full
+  private final ArrayDeque<Held> held = new ArrayDeque<>();
+  // Futures of the chunks emitted by the current write
+  private List<Future<Void>> emitted;
+  private Handler<Void> drainHandler;
+  // Completed with the end of the delegate once the held chunks are written
+  private Promise<Void> ending;
+  // Set when the codec has failed or the stream has ended
+  private Throwable failure;
+
+  public CodecWriteStream(WriteStream<Buffer> delegate, ZipCodec codec) {
+    this.delegate = delegate;
+    this.codec = codec;
+    delegate.drainHandler(v -> drained());
+  }
+
+  @Override
+  public synchronized WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+    delegate.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public synchronized Future<Void> write(Buffer data) {
+    if (failure != null) {
+      return Future.failedFuture(failure);
+    }
+    emitted = new ArrayList<>(1);
+    try {
+      codec.write(data, this::emit);
+    } catch (VertxException e) {
+      abort(e);
+      return Future.failedFuture(e);
+    }
+    return completion(emitted);
+  }
+
+  @Override
+  public synchronized Future<Void> end() {
+    if (failure != null) {
+      return Future.failedFuture(failure);
+    }
+    emitted = new ArrayList<>(1);
+    try {
+      codec.end(this::emit);
+    } catch (VertxException e) {
+      abort(e);
+      return Future.failedFuture(e);
+    }
+    failure = new IllegalStateException("Stream is ended");
+    if (held.isEmpty()) {
+      emitted.add(delegate.end());
+    } else {
+      ending = Promise.promise();
+      emitted.add(ending.future());
+    }
+    return completion(emitted);
+  }
+
+  private static Future<Void> completion(List<Future<Void>> futures) {
+    switch (futures.size()) {
+      case 0:
+        // The data is buffered by the codec
+        return Future.succeededFuture();
+      case 1:
+        return futures.get(0);
+      default:
+        return Future.all(futures).mapEmpty();
+    }
+  }
+
+  private void emit(Buffer chunk) {
+    if (held.isEmpty() && !delegate.writeQueueFull()) {
+      emitted.add(delegate.write(chunk));
+    } else {
+      Held h = new Held(chunk);
+      held.add(h);
+      emitted.add(h.promise.future());
+    }
+  }
+
+  private synchronized void drained() {
+    while (!held.isEmpty() && !delegate.writeQueueFull()) {
+      Held h = held.poll();
+      delegate.write(h.chunk).onComplete(h.promise);
+    }
+    if (!held.isEmpty()) {
+      return;
+    }
+    if (ending != null) {
+      Promise<Void> p = ending;
+      ending = null;
+      delegate.end().onComplete(p);
+    } else if (drainHandler != null && failure == null) {
+      drainHandler.handle(null);
+    }
+  }
+
+  private void abort(Throwable cause) {
+    failure = cause;
+    codec.release();
+    Held h;
+    while ((h = held.poll()) != null) {
+      h.promise.fail(cause);
+    }
+    if (delegate instanceof HttpServerResponse) {
+      ((HttpServerResponse) delegate).reset();
+    } else {
+      delegate.end();
+    }
+  }
+
+  @Override
+  public synchronized WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+    delegate.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public synchronized boolean writeQueueFull() {
+    return !held.isEmpty() || delegate.writeQueueFull();
+  }
+
+  @Override
+  public synchronized WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+    this.drainHandler = handler;
+    return this;
+  }
+
+  private static class Held {
+    final Buffer chunk;
+    final Promise<Void> promise = Promise.promise();
+    Held(Buffer chunk) {
+      this.chunk = chunk;
+    }
+  }
+}
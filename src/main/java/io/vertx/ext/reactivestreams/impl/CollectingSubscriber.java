@@ -0,0 +1,244 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams.impl;
+
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A subscriber requesting all the elements of a publisher and collecting them into a single result.
+ * <p>
+ * When the collected size exceeds the maximum size the subscription is cancelled and the result fails with a
+ * {@link VertxException}.
+ */
+public abstract class CollectingSubscriber<T, R> implements Subscriber<T> {
+
+  /**
+   * Create a subscriber collecting buffers into a single buffer.
+   *
+   * @param expectedSize  the initial capacity of the collected buffer capped at {@code maxSize}, {@code 0} to
+   *                      assemble the buffers in a composite buffer instead of copying them
+   * @param maxSize  the maximum size in bytes
+   */
+  public static CollectingSubscriber<Buffer, Buffer> buffer(int expectedSize, int maxSize) {
+    return expectedSize > 0 ? new CopyingBufferCollector(expectedSize, maxSize) : new CompositeBufferCollector(maxSize);
+  }
+
+  /**
+   * Create a subscriber collecting elements into a list.
+   *
+   * @param expectedSize  the initial capacity of the list capped at {@code maxSize}
+   * @param maxSize  the maximum number of elements
+   */
+  public static <T> CollectingSubscriber<T, List<T>> list(int expectedSize, int maxSize) {
+    return new ListCollector<>(expectedSize, maxSize);
+  }
+
+  private final Promise<R> promise = Promise.promise();
+  final int maxSize;
+  private Subscription subscription;
+  private boolean done;
+
+  CollectingSubscriber(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the future of the collected result
+   */
+  public Future<R> future() {
+    return promise.future();
+  }
+
+  /**
+   * Collect an element.
+   *
+   * @return {@code false} when the collected size would exceed {@link #maxSize}
+   */
+  abstract boolean add(T element);
+
+  abstract R result();
+
+  /**
+   * Discard the elements collected so far.
+   */
+  abstract void discard();
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    if (subscription == null) {
+      throw new NullPointerException("subscription");
+    }
+    if (this.subscription != null) {
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    subscription.request(Long.MAX_VALUE);
+  }
+
+  @Override
+  public void onNext(T element) {
+    if (element == null) {
+      throw new NullPointerException("element");
+    }
+    if (done) {
+      return;
+    }
+    if (!add(element)) {
+      done = true;
+      subscription.cancel();
+      discard();
+      promise.fail(new VertxException("The collected size exceeds " + maxSize, true));
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    if (throwable == null) {
+      throw new NullPointerException("throwable");
+    }
+    if (!done) {
+      done = true;
+      discard();
+      promise.fail(throwable);
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    if (!done) {
+      done = true;
+      promise.complete(result());
+    }
+  }
+
+  private static class CopyingBufferCollector extends CollectingSubscriber<Buffer, Buffer> {
+
+    private Buffer buffer;
+
+    CopyingBufferCollector(int expectedSize, int maxSize) {
+      super(maxSize);
+      buffer = Buffer.buffer(Math.min(expectedSize, maxSize));
+    }
+
+    @Override
+    boolean add(Buffer element) {
+      if (element.length() > maxSize - buffer.length()) {
+        return false;
+      }
+      buffer.appendBuffer(element);
+      return true;
+    }
+
+    @Override
+    Buffer result() {
+      return buffer;
+    }
+
+    @Override
+    void discard() {
+      buffer = null;
+    }
+  }
+
+  private static class CompositeBufferCollector extends CollectingSubscriber<Buffer, Buffer> {
+
+    // Created on the second buffer, a single buffer is the result as is
+    private CompositeByteBuf composite;
+    private Buffer first;
+    private int size;
+
+    CompositeBufferCollector(int maxSize) {
+      super(maxSize);
+    }
+
+    @Override
+    boolean add(Buffer element) {
+      if (element.length() > maxSize - size) {
+        return false;
+      }
+      size += element.length();
+      if (first == null) {
+        first = element;
+      } else {
+        if (composite == null) {
+          // Never consolidate the components
+          composite = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+          composite.addComponent(true, ((BufferInternal) first).getByteBuf());
+        }
+        composite.addComponent(true, ((BufferInternal) element).getByteBuf());
+      }
+      return true;
+    }
+
+    @Override
+    Buffer result() {
+      if (composite != null) {
+        return BufferInternal.buffer(composite);
+      }
+      return first != null ? first : Buffer.buffer();
+    }
+
+    @Override
+    void discard() {
+      composite = null;
+      first = null;
+    }
+  }
+
+  private static class ListCollector<T> extends CollectingSubscriber<T, List<T>> {
+
+    private List<T> list;
+
+    ListCollector(int expectedSize, int maxSize) {
+      super(maxSize);
+      list = new ArrayList<>(Math.min(expectedSize, maxSize));
+    }
+
+    @Override
+    boolean add(T element) {
+      if (list.size() == maxSize) {
+        return false;
+      }
+      list.add(element);
+      return true;
+    }
+
+    @Override
+    List<T> result() {
+      return list;
+    }
+
+    @Override
+    void discard() {
+      list = null;
+    }
+  }
+}
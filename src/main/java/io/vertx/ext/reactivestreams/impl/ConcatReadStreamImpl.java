@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams.impl;
+
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Concatenates several publishers in order, the next publishers are subscribed ahead with their own prefetch queue.
+ * <p>
+ * The publisher being read and up to {@code maxConcurrency - 1} next publishers are subscribed. Only the publisher
+ * being read is replenished, the next ones are requested their initial prefetch only.
+ */
+public class ConcatReadStreamImpl<T> extends PrefetchingReadStream<T> {
+
+  private final List<Publisher<? extends T>> publishers;
+  private final int maxConcurrency;
+  // The subscribed sources in order, the head is being read
+  private final ArrayDeque<Source> sources = new ArrayDeque<>();
+  private int next;
+
+  public ConcatReadStreamImpl(List<? extends Publisher<? extends T>> publishers, int maxConcurrency, long prefetch) {
+    super(prefetch);
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be >= 1");
+    }
+    this.publishers = new ArrayList<>(publishers);
+    this.maxConcurrency = maxConcurrency;
+    synchronized (this) {
+      subscribeNext();
+    }
+  }
+
+  @Override
+  protected Iterable<Source> sources() {
+    return sources;
+  }
+
+  @Override
+  protected void initialRequest(Source source) {
+    source.request(prefetch);
+  }
+
+  private void subscribeNext() {
+    while (!terminated && sources.size() < maxConcurrency && next < publishers.size()) {
+      Source source = new Source();
+      sources.add(source);
+      // Let the publisher be garbage collected once read
+      Publisher<? extends T> publisher = publishers.set(next++, null);
+      publisher.subscribe(source);
+    }
+  }
+
+  @Override
+  protected void drainSources() {
+    while (true) {
+      Source source = sources.peek();
+      if (source == null) {
+        if (next == publishers.size() && endHandler != null) {
+          end();
+        }
+        return;
+      }
+      if (source.queue.isEmpty()) {
+        if (!source.done) {
+          return;
+        }
+        sources.poll();
+        subscribeNext();
+        if (terminated) {
+          return;
+        }
+        continue;
+      }
+      if (demand == 0L || dataHandler == null) {
+        return;
+      }
+      T data = source.queue.poll();
+      source.replenish();
+      if (emit(data)) {
+        return;
+      }
+    }
+  }
+}
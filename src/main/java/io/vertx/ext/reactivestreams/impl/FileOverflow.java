@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link Overflow} spilling buffers to an append-only temporary file.
+ * <p>
+ * Each buffer is stored as a 4 bytes length followed by its content. The file is created in the overflow directory on
+ * the first append, truncated each time it has been fully replayed and deleted on close.
+ * <p>
+ * The file is accessed with ordered blocking tasks of the stream context, so the appends, the reads and the close run
+ * on a worker thread in the order they were issued.
+ */
+public class FileOverflow implements Overflow<Buffer> {
+
+  private final Context context;
+  private final Path directory;
+  private final int threshold;
+  // Accessed under the stream monitor
+  private int size;
+  // Accessed by the blocking tasks
+  private final ByteBuffer header = ByteBuffer.allocate(4);
+  private Path file;
+  private FileChannel channel;
+  private long readPos;
+  private long writePos;
+
+  public FileOverflow(Context context, String directory, int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("threshold must be >= 0");
+    }
+    this.context = context;
+    this.directory = Paths.get(directory);
+    this.threshold = threshold;
+  }
+
+  @Override
+  public int threshold() {
+    return threshold;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Future<Void> append(Buffer element) {
+    byte[] bytes = element.getBytes();
+    size++;
+    return context.executeBlocking(() -> {
+      if (channel == null) {
+        file = Files.createTempFile(directory, "overflow", ".bin");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      header.clear();
+      header.putInt(bytes.length).flip();
+      writeFully(header, writePos);
+      writeFully(ByteBuffer.wrap(bytes), writePos + 4);
+      writePos += 4 + bytes.length;
+      return null;
+    }, true);
+  }
+
+  @Override
+  public Future<List<Buffer>> poll(int max) {
+    int count = Math.min(max, size);
+    size -= count;
+    return context.executeBlocking(() -> {
+      List<Buffer> elements = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        header.clear();
+        readFully(header, readPos);
+        byte[] bytes = new byte[header.getInt(0)];
+        readFully(ByteBuffer.wrap(bytes), readPos + 4);
+        readPos += 4 + bytes.length;
+        elements.add(Buffer.buffer(bytes));
+      }
+      if (readPos == writePos && channel != null) {
+        // Fully replayed, reclaim the disk space
+        readPos = 0L;
+        writePos = 0L;
+        try {
+          channel.truncate(0L);
+        } catch (IOException ignore) {
+          // Positions are reset, the file will be overwritten
+        }
+      }
+      return elements;
+    }, true);
+  }
+
+  @Override
+  public void close() {
+    size = 0;
+    context.executeBlocking(() -> {
+      readPos = 0L;
+      writePos = 0L;
+      if (channel != null) {
+        FileChannel ch = channel;
+        Path f = file;
+        channel = null;
+        file = null;
+        try {
+          ch.close();
+        } finally {
+          Files.deleteIfExists(f);
+        }
+      }
+      return null;
+    }, true);
+  }
+
+  private void writeFully(ByteBuffer src, long position) throws IOException {
+    while (src.hasRemaining()) {
+      position += channel.write(src, position);
+    }
+  }
+
+  private void readFully(ByteBuffer dst, long position) throws IOException {
+    if (channel == null) {
+      throw new IOException("Overflow file is closed");
+    }
+    while (dst.hasRemaining()) {
+      int read = channel.read(dst, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of overflow file " + file);
+      }
+      position += read;
+    }
+  }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.buffer.BufferInternal;
+import io.vertx.ext.reactivestreams.FilePublisher;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * Subscriptions are driven from the publisher context: requests and cancellations are handed over to the context
+ * and the chunks are emitted from it.
+ */
+public class FilePublisherImpl implements FilePublisher {
+
+  // Larger files are mapped in several regions
+  private static final long MAX_MAPPED_REGION_SIZE = 1L << 30;
+
+  private final Vertx vertx;
+  private final String path;
+  protected final ContextInternal ctx;
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+  private int readAhead = DEFAULT_READ_AHEAD;
+  private boolean memoryMapped;
+
+  public FilePublisherImpl(Vertx vertx, String path) {
+    this.vertx = vertx;
+    this.path = Objects.requireNonNull(path);
+    this.ctx = (ContextInternal) vertx.getOrCreateContext();
+  }
+
+  @Override
+  public synchronized FilePublisher setChunkSize(int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be >= 1");
+    }
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  @Override
+  public synchronized FilePublisher setReadAhead(int readAhead) {
+    if (readAhead < 1) {
+      throw new IllegalArgumentException("readAhead must be >= 1");
+    }
+    this.readAhead = readAhead;
+    return this;
+  }
+
+  @Override
+  public synchronized FilePublisher setMemoryMapped(boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+    return this;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Buffer> subscriber) {
+    subscribe(subscriber, 0L);
+  }
+
+  @Override
+  public Publisher<Buffer> from(long offset) {
+    if (offset < 0L) {
+      throw new IllegalArgumentException("offset must be >= 0");
+    }
+    return subscriber -> subscribe(subscriber, offset);
+  }
+
+  private void subscribe(Subscriber<? super Buffer> subscriber, long offset) {
+    Objects.requireNonNull(subscriber);
+    ChunkSubscription sub;
+    synchronized (this) {
+      sub = memoryMapped ? new MappedSubscription(subscriber, chunkSize) : new ReadSubscription(subscriber, chunkSize, readAhead);
+    }
+    sub.position = offset;
+    ctx.runOnContext(v -> sub.start());
+  }
+
+  private abstract class ChunkSubscription implements Subscription {
+
+    final Subscriber<? super Buffer> subscriber;
+    final int chunkSize;
+    // Only accessed from the context
+    long position;
+    long size = -1L;
+    private long requested;
+    boolean done;
+
+    ChunkSubscription(Subscriber<? super Buffer> subscriber, int chunkSize) {
+      this.subscriber = subscriber;
+      this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Open the file.
+     *
+     * @return the file size
+     */
+    abstract Future<Long> open();
+
+    /**
+     * @return the next chunk or {@code null} when none is available yet
+     */
+    abstract Buffer next();
+
+    /**
+     * @return whether all the chunks have been emitted
+     */
+    abstract boolean exhausted();
+
+    /**
+     * Start reading the next chunks.
+     */
+    abstract void readAhead();
+
+    abstract void close();
+
+    final void start() {
+      try {
+        subscriber.onSubscribe(this);
+      } catch (Throwable t) {
+        fail(t);
+        return;
+      }
+      open().onComplete(ar -> {
+        if (done) {
+          // Cancelled while opening
+          close();
+        } else if (ar.succeeded()) {
+          size = ar.result();
+          drain();
+        } else {
+          fail(ar.cause());
+        }
+      });
+    }
+
+    final void drain() {
+      if (done || size < 0L) {
+        return;
+      }
+      while (requested > 0L) {
+        Buffer chunk = next();
+        if (done || chunk == null) {
+          break;
+        }
+        if (requested != Long.MAX_VALUE) {
+          requested--;
+        }
+        try {
+          subscriber.onNext(chunk);
+        } catch (Throwable t) {
+          fail(t);
+          return;
+        }
+      }
+      if (!done) {
+        if (exhausted()) {
+          done = true;
+          close();
+          subscriber.onComplete();
+        } else {
+          readAhead();
+        }
+      }
+    }
+
+    final void fail(Throwable cause) {
+      if (!done) {
+        done = true;
+        close();
+        subscriber.onError(cause);
+      }
+    }
+
+    @Override
+    public void request(long n) {
+      ctx.runOnContext(v -> {
+        if (done) {
+          return;
+        }
+        if (n <= 0L) {
+          fail(new IllegalArgumentException("3.9 Subscriber cannot request less then 1 for the number of elements."));
+          return;
+        }
+        requested += n;
+        if (requested < 0L) {
+          requested = Long.MAX_VALUE;
+        }
+        drain();
+      });
+    }
+
+    @Override
+    public void cancel() {
+      ctx.runOnContext(v -> {
+        if (!done) {
+          done = true;
+          close();
+        }
+      });
+    }
+  }
+
+  private class ReadSubscription extends ChunkSubscription {
+
+    private final int readAhead;
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+    private AsyncFile file;
+
+    ReadSubscription(Subscriber<? super Buffer> subscriber, int chunkSize, int readAhead) {
+      super(subscriber, chunkSize);
+      this.readAhead = readAhead;
+    }
+
+    @Override
+    Future<Long> open() {
+      return vertx.fileSystem()
+        .open(path, new OpenOptions().setRead(true).setWrite(false).setCreate(false))
+        .compose(f -> {
+          file = f;
+          return f.size();
+        });
+    }
+
+    @Override
+    Buffer next() {
+      Chunk head = chunks.peek();
+      if (head != null && head.data != null) {
+        chunks.poll();
+        return head.data;
+      }
+      return null;
+    }
+
+    @Override
+    boolean exhausted() {
+      return position >= size && chunks.isEmpty();
+    }
+
+    @Override
+    void readAhead() {
+      while (chunks.size() < readAhead && position < size) {
+        int len = (int) Math.min(chunkSize, size - position);
+        Chunk chunk = new Chunk();
+        chunks.add(chunk);
+        file.read(Buffer.buffer(len), 0, position, len).onComplete(ar -> {
+          if (ar.succeeded()) {
+            // Reads can complete out of order, the chunks are emitted in file order
+            chunk.data = ar.result();
+            drain();
+          } else {
+            fail(ar.cause());
+          }
+        });
+        position += len;
+      }
+    }
+
+    @Override
+    void close() {
+      chunks.clear();
+      if (file != null) {
+        file.close();
+      }
+    }
+  }
+
+  private static class Chunk {
+    Buffer data;
+  }
+
+  private class MappedSubscription extends ChunkSubscription {
+
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    MappedSubscription(Subscriber<? super Buffer> subscriber, int chunkSize) {
+      super(subscriber, chunkSize);
+    }
+
+    @Override
+    Future<Long> open() {
+      return ctx.executeBlocking(() -> {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        return channel.size();
+      });
+    }
+
+    @Override
+    Buffer next() {
+      if (position >= size) {
+        return null;
+      }
+      int len = (int) Math.min(chunkSize, size - position);
+      if (region == null || position + len > regionStart + region.capacity()) {
+        long regionSize = Math.min(size - position, Math.max(MAX_MAPPED_REGION_SIZE, chunkSize));
+        try {
+          region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+        } catch (IOException e) {
+          fail(e);
+          return null;
+        }
+        regionStart = position;
+      }
+      ByteBuffer slice = region.duplicate();
+      int offset = (int) (position - regionStart);
+      slice.position(offset).limit(offset + len);
+      position += len;
+      return BufferInternal.buffer(Unpooled.wrappedBuffer(slice.slice()));
+    }
+
+    @Override
+    boolean exhausted() {
+      return position >= size;
+    }
+
+    @Override
+    void readAhead() {
+    }
+
+    @Override
+    void close() {
+      region = null;
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException ignore) {
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.parsetools.RecordParser;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * A publisher of the records parsed from a publisher of buffers with a {@link RecordParser}.
+ * <p>
+ * Each subscriber subscribes to the source with its own parser. Demand is expressed in records: while records are
+ * demanded and none is available, the source is requested up to {@code SOURCE_BATCH_SIZE} buffers, topped up once
+ * half of them have arrived, so at most the records of a batch of source buffers are held.
+ * <p>
+ * On completion of the source, the trailing bytes of delimited input are emitted as a last record, while trailing
+ * bytes of length prefixed input fail the subscription as a truncated record.
+ */
+public class FramingPublisher implements Publisher<Buffer> {
+
+  private static final int LENGTH_PREFIX_SIZE = 4;
+  private static final int SOURCE_BATCH_SIZE = 8;
+
+  private final Publisher<Buffer> source;
+  private final Buffer delimiter;
+  private final int maxRecordSize;
+
+  /**
+   * @param delimiter  the record delimiter or {@code null} for records prefixed by their length as a 4 bytes
+   *                   big endian integer
+   */
+  public FramingPublisher(Publisher<Buffer> source, Buffer delimiter, int maxRecordSize) {
+    if (maxRecordSize < 1) {
+      throw new IllegalArgumentException("maxRecordSize must be >= 1");
+    }
+    this.source = source;
+    this.delimiter = delimiter;
+    this.maxRecordSize = maxRecordSize;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Buffer> subscriber) {
+    Objects.requireNonNull(subscriber);
+    source.subscribe(new FramingSubscription(subscriber));
+  }
+
+  private class FramingSubscription implements Subscriber<Buffer>, Subscription {
+
+    private final Subscriber<? super Buffer> subscriber;
+    private final RecordParser parser;
+    private final ArrayDeque<Buffer> records = new ArrayDeque<>();
+    private Subscription upstream;
+    // Demanded records, Long.MAX_VALUE is unbounded
+    private long requested;
+    // Source buffers requested and not received yet
+    private int outstanding;
+    // Bytes received and not parsed into a record yet
+    private long remaining;
+    private boolean completed;
+    // Signalled instead of the completion once the records have been delivered
+    private Throwable truncated;
+    private boolean terminated;
+    private boolean draining;
+    // Length of the record being read, -1 when reading the length prefix
+    private int length = -1;
+
+    FramingSubscription(Subscriber<? super Buffer> subscriber) {
+      this.subscriber = subscriber;
+      if (delimiter != null) {
+        parser = RecordParser.newDelimited(delimiter);
+        parser.handler(this::handleDelimited);
+      } else {
+        parser = RecordParser.newFixed(LENGTH_PREFIX_SIZE);
+        parser.handler(this::handleLengthPrefixed);
+      }
+      parser.maxRecordSize(maxRecordSize);
+    }
+
+    private void handleDelimited(Buffer buffer) {
+      remaining -= buffer.length() + delimiter.length();
+      records.add(buffer);
+    }
+
+    private void handleLengthPrefixed(Buffer buffer) {
+      remaining -= buffer.length();
+      if (length == -1) {
+        int len = buffer.getInt(0);
+        if (len < 0 || len > maxRecordSize) {
+          throw new IllegalStateException("The current record is too long");
+        }
+        if (len == 0) {
+          records.add(Buffer.buffer());
+        } else {
+          length = len;
+          parser.fixedSizeMode(len);
+        }
+      } else {
+        length = -1;
+        parser.fixedSizeMode(LENGTH_PREFIX_SIZE);
+        records.add(buffer);
+      }
+    }
+
+    @Override
+    public synchronized void onSubscribe(Subscription subscription) {
+      if (subscription == null) {
+        throw new NullPointerException("subscription");
+      }
+      if (upstream != null) {
+        subscription.cancel();
+        return;
+      }
+      upstream = subscription;
+      subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public synchronized void onNext(Buffer buffer) {
+      if (buffer == null) {
+        throw new NullPointerException("data");
+      }
+      if (terminated) {
+        return;
+      }
+      outstanding--;
+      remaining += buffer.length();
+      try {
+        parser.handle(buffer);
+      } catch (IllegalStateException e) {
+        upstream.cancel();
+        fail(e);
+        return;
+      }
+      drain();
+    }
+
+    @Override
+    public synchronized void onError(Throwable throwable) {
+      if (throwable == null) {
+        throw new NullPointerException("throwable");
+      }
+      if (!terminated) {
+        fail(throwable);
+      }
+    }
+
+    @Override
+    public synchronized void onComplete() {
+      if (terminated) {
+        return;
+      }
+      completed = true;
+      if (remaining > 0L) {
+        if (delimiter != null) {
+          // Terminate the last record, e.g. a last line without a line feed
+          try {
+            parser.handle(delimiter);
+          } catch (IllegalStateException e) {
+            fail(e);
+            return;
+          }
+        } else {
+          truncated = new IllegalStateException("The last record is truncated");
+        }
+      }
+      drain();
+    }
+
+    @Override
+    public synchronized void request(long n) {
+      if (terminated) {
+        return;
+      }
+      if (n <= 0L) {
+        upstream.cancel();
+        fail(new IllegalArgumentException("3.9 Subscriber cannot request less then 1 for the number of elements."));
+        return;
+      }
+      requested += n;
+      if (requested < 0L) {
+        requested = Long.MAX_VALUE;
+      }
+      drain();
+    }
+
+    @Override
+    public synchronized void cancel() {
+      if (!terminated) {
+        terminated = true;
+        records.clear();
+        upstream.cancel();
+      }
+    }
+
+    private void fail(Throwable cause) {
+      terminated = true;
+      records.clear();
+      subscriber.onError(cause);
+    }
+
+    private void drain() {
+      if (draining) {
+        return;
+      }
+      draining = true;
+      try {
+        while (true) {
+          while (!terminated && requested > 0L && !records.isEmpty()) {
+            if (requested != Long.MAX_VALUE) {
+              requested--;
+            }
+            subscriber.onNext(records.poll());
+          }
+          if (terminated || !records.isEmpty()) {
+            return;
+          }
+          if (completed) {
+            terminated = true;
+            if (truncated != null) {
+              subscriber.onError(truncated);
+            } else {
+              subscriber.onComplete();
+            }
+            return;
+          }
+          if (requested == 0L || outstanding > SOURCE_BATCH_SIZE / 2) {
+            return;
+          }
+          // The source can signal the buffers synchronously
+          int n = SOURCE_BATCH_SIZE - outstanding;
+          outstanding = SOURCE_BATCH_SIZE;
+          upstream.request(n);
+        }
+      } finally {
+        draining = false;
+      }
+    }
+  }
+}
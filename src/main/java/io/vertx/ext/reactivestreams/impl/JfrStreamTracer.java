@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.ext.reactivestreams.StreamTracer;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Commits the events to the JDK Flight Recorder, the events are only created when the recording enables them.
+ */
+public class JfrStreamTracer implements StreamTracer {
+
+  @Override
+  public void trace(Object stream, Event event, long value, long timestamp) {
+    StreamEvent jfrEvent = new StreamEvent();
+    if (jfrEvent.shouldCommit()) {
+      jfrEvent.streamType = stream.getClass().getName();
+      jfrEvent.streamId = System.identityHashCode(stream);
+      jfrEvent.event = event.name();
+      jfrEvent.value = value;
+      jfrEvent.commit();
+    }
+  }
+
+  @Name("io.vertx.reactivestreams.StreamEvent")
+  @Label("Reactive Stream Event")
+  @Category({ "Vert.x", "Reactive Streams" })
+  @Description("Back pressure event of a reactive read or write stream")
+  @StackTrace(false)
+  static class StreamEvent extends jdk.jfr.Event {
+
+    @Label("Stream Type")
+    String streamType;
+
+    @Label("Stream Id")
+    @Description("Identity hash code of the stream")
+    int streamId;
+
+    @Label("Event")
+    String event;
+
+    @Label("Value")
+    long value;
+
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.ext.reactivestreams.LatencyHistogram;
+
+import java.util.Objects;
+
+/**
+ * The latency sampling state of a stream, allocated when a histogram is set so idle streams do not pay for it.
+ * <p>
+ * The state is guarded by the stream monitor.
+ */
+class LatencySampler {
+
+  final LatencyHistogram histogram;
+  private final int rate;
+  // Elements seen by the stream
+  private long count;
+  // Read streams time a single element at once: its index, reception time and the number of handled elements
+  long sampleIndex = -1L;
+  long sampleTimestamp;
+  long handled;
+
+  LatencySampler(LatencyHistogram histogram, int rate) {
+    if (rate < 1) {
+      throw new IllegalArgumentException("sampleRate must be >= 1");
+    }
+    this.histogram = Objects.requireNonNull(histogram);
+    this.rate = rate;
+  }
+
+  /**
+   * Account an element seen by the stream.
+   *
+   * @return the index of the element when it is sampled, {@code -1} otherwise
+   */
+  long next() {
+    long index = count++;
+    return index % rate == 0 ? index : -1L;
+  }
+
+  void record(long timestamp) {
+    histogram.record(System.nanoTime() - timestamp);
+  }
+}
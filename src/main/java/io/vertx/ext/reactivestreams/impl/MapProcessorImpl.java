@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.ext.reactivestreams.ReactiveProcessor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A processor mapping elements inline, the downstream subscriber is handed a subscription that forwards demand
+ * and cancellation to the upstream subscription.
+ */
+public class MapProcessorImpl<T, R> implements ReactiveProcessor<T, R> {
+
+  private static final Subscription NOOP = new Subscription() {
+    @Override
+    public void request(long n) {
+    }
+    @Override
+    public void cancel() {
+    }
+  };
+
+  private final Function<? super T, ? extends R> mapper;
+  private Subscription upstream;
+  private Subscriber<? super R> downstream;
+  private boolean subscribed;
+  private volatile boolean done;
+  // Terminal signal received before the downstream subscription, null for completion
+  private Throwable failure;
+
+  public MapProcessorImpl(Function<? super T, ? extends R> mapper) {
+    this.mapper = Objects.requireNonNull(mapper);
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super R> subscriber) {
+    Objects.requireNonNull(subscriber);
+    synchronized (this) {
+      if (downstream == null) {
+        downstream = subscriber;
+        checkSubscribed();
+        return;
+      }
+    }
+    subscriber.onSubscribe(NOOP);
+    subscriber.onError(new IllegalStateException("This processor accepts a single subscriber"));
+  }
+
+  @Override
+  public synchronized void onSubscribe(Subscription subscription) {
+    if (subscription == null) {
+      throw new NullPointerException("subscription");
+    }
+    if (upstream != null) {
+      subscription.cancel();
+      return;
+    }
+    upstream = subscription;
+    checkSubscribed();
+  }
+
+  private void checkSubscribed() {
+    if (upstream == null || downstream == null) {
+      return;
+    }
+    subscribed = true;
+    downstream.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+        upstream.request(n);
+      }
+      @Override
+      public void cancel() {
+        upstream.cancel();
+      }
+    });
+    if (done) {
+      terminate();
+    }
+  }
+
+  @Override
+  public void onNext(T item) {
+    if (item == null) {
+      throw new NullPointerException("item");
+    }
+    if (done) {
+      return;
+    }
+    R mapped;
+    try {
+      mapped = Objects.requireNonNull(mapper.apply(item), "The mapper returned a null value");
+    } catch (Throwable t) {
+      upstream.cancel();
+      onError(t);
+      return;
+    }
+    downstream.onNext(mapped);
+  }
+
+  @Override
+  public synchronized void onError(Throwable throwable) {
+    if (throwable == null) {
+      throw new NullPointerException("throwable");
+    }
+    if (!done) {
+      done = true;
+      failure = throwable;
+      if (subscribed) {
+        terminate();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void onComplete() {
+    if (!done) {
+      done = true;
+      if (subscribed) {
+        terminate();
+      }
+    }
+  }
+
+  private void terminate() {
+    if (failure != null) {
+      downstream.onError(failure);
+    } else {
+      downstream.onComplete();
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges several publishers, each publisher is a source with its own prefetch queue.
+ * <p>
+ * Sources are served in weighted round robin: the current source emits up to its weight elements before the next
+ * source with queued elements is served.
+ * <p>
+ * Upstream demand follows the downstream demand: the elements fetched and not covered by the queued or requested
+ * elements are requested from the sources split by weight, a source never holds more than {@code prefetch} queued and
+ * requested elements. A flowing stream keeps each source replenished instead.
+ */
+public class MergeReadStreamImpl<T> extends PrefetchingReadStream<T> {
+
+  private final List<Source> sources;
+  private final int[] weights;
+  private int current;
+  private int credits;
+
+  public MergeReadStreamImpl(List<? extends Publisher<? extends T>> publishers, List<Integer> weights, long prefetch) {
+    super(prefetch);
+    if (publishers.size() != weights.size()) {
+      throw new IllegalArgumentException("Expected " + publishers.size() + " weights instead of " + weights.size());
+    }
+    this.sources = new ArrayList<>(publishers.size());
+    this.weights = new int[weights.size()];
+    for (int i = 0; i < this.weights.length; i++) {
+      int weight = weights.get(i);
+      if (weight < 1) {
+        throw new IllegalArgumentException("weight must be >= 1");
+      }
+      this.weights[i] = weight;
+      sources.add(new Source());
+    }
+    if (!sources.isEmpty()) {
+      credits = this.weights[0];
+    }
+    for (int i = 0; i < publishers.size(); i++) {
+      publishers.get(i).subscribe(sources.get(i));
+    }
+  }
+
+  @Override
+  protected Iterable<Source> sources() {
+    return sources;
+  }
+
+  @Override
+  protected void initialRequest(Source source) {
+    if (demand == Long.MAX_VALUE) {
+      source.request(prefetch);
+    } else {
+      requestSources();
+    }
+  }
+
+  @Override
+  protected void drainSources() {
+    while (true) {
+      while (demand > 0L && dataHandler != null) {
+        Source source = next();
+        if (source == null) {
+          break;
+        }
+        if (emit(source.queue.poll())) {
+          return;
+        }
+      }
+      if (endHandler != null && isCompleted()) {
+        end();
+        return;
+      }
+      requestSources();
+      // A source can signal the requested elements synchronously
+      if (terminated || demand == 0L || dataHandler == null || isEmpty()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Request the sources the elements demanded downstream and not covered yet.
+   */
+  private void requestSources() {
+    if (demand == Long.MAX_VALUE) {
+      for (Source source: sources) {
+        source.replenish();
+      }
+      return;
+    }
+    long needed = demand;
+    int total = 0;
+    for (int i = 0; i < weights.length; i++) {
+      Source source = sources.get(i);
+      needed -= source.outstanding();
+      if (source.subscribed()) {
+        total += weights[i];
+      }
+    }
+    if (needed <= 0L || total == 0) {
+      return;
+    }
+    // Split by weight without overflowing, the rounding remainder is spread from the current source
+    long remainder = needed;
+    long[] shares = new long[weights.length];
+    for (int i = 0; i < shares.length; i++) {
+      if (sources.get(i).subscribed()) {
+        shares[i] = needed / total * weights[i] + needed % total * weights[i] / total;
+        remainder -= shares[i];
+      }
+    }
+    for (int i = 0; i < shares.length && remainder > 0L; i++) {
+      int index = (current + i) % shares.length;
+      if (sources.get(index).subscribed()) {
+        shares[index]++;
+        remainder--;
+      }
+    }
+    for (int i = 0; i < shares.length; i++) {
+      Source source = sources.get(i);
+      long n = Math.min(shares[i], prefetch - source.outstanding());
+      if (n > 0L) {
+        source.request(n);
+      }
+    }
+  }
+
+  private Source next() {
+    int size = sources.size();
+    if (size == 0) {
+      return null;
+    }
+    for (int i = 0; i <= size; i++) {
+      Source source = sources.get(current);
+      if (credits > 0 && !source.queue.isEmpty()) {
+        credits--;
+        return source;
+      }
+      current = (current + 1) % size;
+      credits = weights[current];
+    }
+    return null;
+  }
+
+  private boolean isCompleted() {
+    for (Source source: sources) {
+      if (!source.done || !source.queue.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isEmpty() {
+    for (Source source: sources) {
+      if (!source.queue.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
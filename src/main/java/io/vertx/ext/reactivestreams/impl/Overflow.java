@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Future;
+
+import java.util.List;
+
+/**
+ * Second tier of the {@link ReactiveWriteStreamImpl} pending queue, receiving the elements written once the in-memory
+ * queue reached {@link #threshold()}.
+ * <p>
+ * Elements are replayed in the order they were appended. Implementations are called under the write stream monitor
+ * and must not block, the storage is accessed asynchronously and the returned futures complete on the stream context.
+ */
+public interface Overflow<T> {
+
+  /**
+   * @return the number of elements kept in memory before the stream starts to overflow
+   */
+  int threshold();
+
+  /**
+   * @return the number of elements appended and not polled yet
+   */
+  int size();
+
+  /**
+   * Append an element, the element is not retained by the overflow once this method returns.
+   *
+   * @param element the element
+   * @return a future completed once the element is stored
+   */
+  Future<Void> append(T element);
+
+  /**
+   * Remove up to {@code max} of the oldest elements, {@link #size()} accounts for the removal right away.
+   *
+   * @param max the maximum number of elements
+   * @return a future completed with the elements read back
+   */
+  Future<List<T>> poll(int max);
+
+  /**
+   * Discard all the elements and release the resources held by this overflow, the overflow can still be appended to
+   * afterwards.
+   */
+  void close();
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Routes the elements of a source stream to partitions by key, each partition is a stream emitting on its own context.
+ * <p>
+ * Each partition queues up to {@code queueSize} elements, the source is paused when the partition targeted by an
+ * element is full and resumed once that partition has room again. The other partitions keep draining their queue.
+ */
+public class PartitionStage<T> {
+
+  private final ReadStream<T> source;
+  private final Function<? super T, ?> keyMapper;
+  private final int queueSize;
+  private final List<Partition> partitions;
+  // The index of the full partition that paused the source, -1 when the source flows
+  private final AtomicInteger blocked = new AtomicInteger(-1);
+
+  public PartitionStage(ReadStream<T> source, Function<? super T, ?> keyMapper, List<Context> contexts, int queueSize) {
+    if (contexts.isEmpty()) {
+      throw new IllegalArgumentException("At least one context is required");
+    }
+    if (queueSize < 1) {
+      throw new IllegalArgumentException("queueSize must be >= 1");
+    }
+    this.source = source;
+    this.keyMapper = keyMapper;
+    this.queueSize = queueSize;
+    List<Partition> list = new ArrayList<>(contexts.size());
+    for (int i = 0; i < contexts.size(); i++) {
+      list.add(new Partition(i, contexts.get(i)));
+    }
+    this.partitions = Collections.unmodifiableList(list);
+    source.exceptionHandler(this::handleException);
+    source.endHandler(v -> handleEnd());
+    source.handler(this::handleElement);
+  }
+
+  /**
+   * @return the partitions, in the order of the contexts
+   */
+  public List<ReadStream<T>> partitions() {
+    return Collections.unmodifiableList(partitions);
+  }
+
+  private void handleElement(T element) {
+    int index = Math.floorMod(keyMapper.apply(element).hashCode(), partitions.size());
+    Partition partition = partitions.get(index);
+    if (partition.offer(element)) {
+      blocked.set(index);
+      source.pause();
+      // The partition might have drained meanwhile
+      if (!partition.isFull()) {
+        unblock(index);
+      }
+    }
+  }
+
+  private void unblock(int index) {
+    if (blocked.compareAndSet(index, -1)) {
+      source.resume();
+    }
+  }
+
+  private void handleEnd() {
+    for (Partition partition: partitions) {
+      partition.terminate(null);
+    }
+  }
+
+  private void handleException(Throwable cause) {
+    for (Partition partition: partitions) {
+      partition.terminate(cause);
+    }
+  }
+
+  private class Partition implements ReadStream<T> {
+
+    private final int index;
+    private final Context context;
+    private final ArrayDeque<T> queue = new ArrayDeque<>();
+    private Handler<T> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+    private long demand = Long.MAX_VALUE;
+    private boolean scheduled;
+    private boolean terminated;
+    private boolean signalled;
+    private Throwable failure;
+
+    Partition(int index, Context context) {
+      this.index = index;
+      this.context = context;
+    }
+
+    /**
+     * @return whether the partition is full after adding the element
+     */
+    synchronized boolean offer(T element) {
+      queue.add(element);
+      schedule();
+      return queue.size() >= queueSize;
+    }
+
+    synchronized boolean isFull() {
+      return queue.size() >= queueSize;
+    }
+
+    synchronized void terminate(Throwable cause) {
+      if (!terminated) {
+        terminated = true;
+        failure = cause;
+        schedule();
+      }
+    }
+
+    private void schedule() {
+      if (!scheduled) {
+        scheduled = true;
+        context.runOnContext(v -> drain());
+      }
+    }
+
+    private void drain() {
+      synchronized (this) {
+        scheduled = false;
+      }
+      while (true) {
+        T element;
+        Handler<T> h;
+        synchronized (this) {
+          if (demand == 0L || handler == null || queue.isEmpty()) {
+            break;
+          }
+          if (demand != Long.MAX_VALUE) {
+            demand--;
+          }
+          element = queue.poll();
+          h = handler;
+        }
+        h.handle(element);
+        if (!isFull()) {
+          unblock(index);
+        }
+      }
+      Handler<Void> end;
+      Handler<Throwable> error;
+      Throwable cause;
+      synchronized (this) {
+        // A failure is signalled immediately, the end once the queue is drained
+        if (!terminated || signalled || (failure == null && !queue.isEmpty())) {
+          return;
+        }
+        signalled = true;
+        cause = failure;
+        end = endHandler;
+        error = exceptionHandler;
+        queue.clear();
+      }
+      if (cause == null) {
+        if (end != null) {
+          end.handle(null);
+        }
+      } else if (error != null) {
+        error.handle(cause);
+      }
+    }
+
+    @Override
+    public synchronized ReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+      this.exceptionHandler = handler;
+      return this;
+    }
+
+    @Override
+    public synchronized ReadStream<T> handler(Handler<T> handler) {
+      this.handler = handler;
+      schedule();
+      return this;
+    }
+
+    @Override
+    public synchronized ReadStream<T> pause() {
+      demand = 0L;
+      return this;
+    }
+
+    @Override
+    public synchronized ReadStream<T> resume() {
+      return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized ReadStream<T> fetch(long amount) {
+      if (amount > 0L) {
+        demand += amount;
+        if (demand < 0L) {
+          demand = Long.MAX_VALUE;
+        }
+        schedule();
+      }
+      return this;
+    }
+
+    @Override
+    public synchronized ReadStream<T> endHandler(Handler<Void> handler) {
+      this.endHandler = handler;
+      return this;
+    }
+  }
+}
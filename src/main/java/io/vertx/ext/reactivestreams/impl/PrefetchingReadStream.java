@@ -0,0 +1,245 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+
+/**
+ * Base of the read streams reading several publishers, each publisher is a {@link Source} with its own prefetch
+ * queue.
+ * <p>
+ * Elements are handled from the thread signalling them while holding the stream monitor, the first failure of a
+ * source cancels the others and terminates the stream.
+ */
+abstract class PrefetchingReadStream<T> implements ReadStream<T> {
+
+  /**
+   * Returns the number of consumed elements after which a prefetch queue is replenished, three quarters of the
+   * prefetch so that the upstream is requested in batches.
+   */
+  static long replenishLimit(long prefetch) {
+    return Math.max(1L, prefetch - (prefetch >> 2));
+  }
+
+  protected final long prefetch;
+  protected final long limit;
+  protected Handler<T> dataHandler;
+  protected Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+  protected long demand = Long.MAX_VALUE;
+  protected boolean terminated;
+  private boolean draining;
+
+  PrefetchingReadStream(long prefetch) {
+    if (prefetch < 1L) {
+      throw new IllegalArgumentException("prefetch must be >= 1");
+    }
+    this.prefetch = prefetch;
+    this.limit = replenishLimit(prefetch);
+  }
+
+  /**
+   * @return the sources not yet read
+   */
+  protected abstract Iterable<Source> sources();
+
+  /**
+   * Deliver the queued elements, called while holding the monitor and never reentrantly.
+   */
+  protected abstract void drainSources();
+
+  /**
+   * Request the initial elements of a source that has just been subscribed.
+   */
+  protected abstract void initialRequest(Source source);
+
+  @Override
+  public synchronized ReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<T> handler(Handler<T> handler) {
+    this.dataHandler = handler;
+    drain();
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<T> pause() {
+    demand = 0L;
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<T> resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public synchronized ReadStream<T> fetch(long amount) {
+    if (amount > 0L) {
+      demand += amount;
+      if (demand < 0L) {
+        demand = Long.MAX_VALUE;
+      }
+      drain();
+    }
+    return this;
+  }
+
+  @Override
+  public synchronized ReadStream<T> endHandler(Handler<Void> handler) {
+    this.endHandler = handler;
+    drain();
+    return this;
+  }
+
+  protected void drain() {
+    if (draining || terminated) {
+      return;
+    }
+    draining = true;
+    try {
+      drainSources();
+    } finally {
+      draining = false;
+    }
+  }
+
+  /**
+   * Deliver an element to the data handler.
+   *
+   * @return whether the handler terminated the stream
+   */
+  protected boolean emit(T data) {
+    if (demand != Long.MAX_VALUE) {
+      demand--;
+    }
+    dataHandler.handle(data);
+    return terminated;
+  }
+
+  protected void end() {
+    terminated = true;
+    endHandler.handle(null);
+  }
+
+  private void fail(Throwable cause) {
+    terminated = true;
+    for (Source source: sources()) {
+      source.queue.clear();
+      if (!source.done && source.subscription != null) {
+        source.done = true;
+        source.subscription.cancel();
+      }
+    }
+    if (exceptionHandler != null) {
+      exceptionHandler.handle(cause);
+    }
+  }
+
+  protected class Source implements Subscriber<T> {
+
+    protected final ArrayDeque<T> queue = new ArrayDeque<>();
+    private Subscription subscription;
+    // Requested and not received yet
+    private long requested;
+    protected boolean done;
+
+    protected boolean subscribed() {
+      return subscription != null && !done;
+    }
+
+    protected long outstanding() {
+      return queue.size() + requested;
+    }
+
+    protected void request(long n) {
+      requested += n;
+      subscription.request(n);
+    }
+
+    /**
+     * Replenish the source once {@link #limit} of its prefetched elements have been consumed.
+     */
+    protected void replenish() {
+      if (subscribed() && outstanding() <= prefetch - limit) {
+        request(limit);
+      }
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      if (subscription == null) {
+        throw new NullPointerException("subscription");
+      }
+      synchronized (PrefetchingReadStream.this) {
+        if (this.subscription != null || terminated) {
+          subscription.cancel();
+          return;
+        }
+        this.subscription = subscription;
+        initialRequest(this);
+      }
+    }
+
+    @Override
+    public void onNext(T data) {
+      if (data == null) {
+        throw new NullPointerException("data");
+      }
+      synchronized (PrefetchingReadStream.this) {
+        if (!done) {
+          requested--;
+          queue.add(data);
+          drain();
+        }
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      if (throwable == null) {
+        throw new NullPointerException("throwable");
+      }
+      synchronized (PrefetchingReadStream.this) {
+        // A source subscribed after the failure was cancelled without being marked done
+        if (!done && !terminated) {
+          done = true;
+          fail(throwable);
+        }
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      synchronized (PrefetchingReadStream.this) {
+        if (!done && !terminated) {
+          done = true;
+          drain();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Context;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signals the elements of a publisher to its subscribers on a context.
+ * <p>
+ * Each subscription prefetches up to {@code prefetch} elements in a queue and replenishes it as the elements are
+ * consumed. A single context task delivers all the queued elements the subscriber has requested, signals arriving
+ * while the task runs are handled by the same task.
+ */
+public class PublishOnPublisher<T> implements Publisher<T> {
+
+  private final Publisher<T> source;
+  private final Context context;
+  private final int prefetch;
+
+  public PublishOnPublisher(Publisher<T> source, Context context, int prefetch) {
+    if (prefetch < 1) {
+      throw new IllegalArgumentException("prefetch must be >= 1");
+    }
+    this.source = Objects.requireNonNull(source);
+    this.context = Objects.requireNonNull(context);
+    this.prefetch = prefetch;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    source.subscribe(new PublishOnSubscription(Objects.requireNonNull(subscriber)));
+  }
+
+  /**
+   * Add {@code n} to {@code requested}, capped at {@code Long.MAX_VALUE} which means unbounded.
+   */
+  static void addRequested(AtomicLong requested, long n) {
+    while (true) {
+      long r = requested.get();
+      if (r == Long.MAX_VALUE) {
+        return;
+      }
+      long u = r + n;
+      if (u < 0L) {
+        u = Long.MAX_VALUE;
+      }
+      if (requested.compareAndSet(r, u)) {
+        return;
+      }
+    }
+  }
+
+  private class PublishOnSubscription implements Subscriber<T>, Subscription {
+
+    private final Subscriber<? super T> downstream;
+    private final int limit = (int) PrefetchingReadStream.replenishLimit(prefetch);
+    // Bounded by the prefetch
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Subscription upstream;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private Throwable failure;
+    // Only accessed from the context
+    private int consumed;
+
+    PublishOnSubscription(Subscriber<? super T> downstream) {
+      this.downstream = downstream;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      if (subscription == null) {
+        throw new NullPointerException("subscription");
+      }
+      if (upstream != null) {
+        subscription.cancel();
+        return;
+      }
+      upstream = subscription;
+      // Scheduled before any delivery task
+      context.runOnContext(v -> downstream.onSubscribe(this));
+      subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T item) {
+      if (item == null) {
+        throw new NullPointerException("item");
+      }
+      queue.offer(item);
+      schedule();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      if (throwable == null) {
+        throw new NullPointerException("throwable");
+      }
+      failure = throwable;
+      done = true;
+      schedule();
+    }
+
+    @Override
+    public void onComplete() {
+      done = true;
+      schedule();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        cancel();
+        context.runOnContext(v -> downstream.onError(new IllegalArgumentException("3.9 Subscriber cannot request less then 1 for the number of elements.")));
+        return;
+      }
+      addRequested(requested, n);
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      if (!cancelled) {
+        cancelled = true;
+        upstream.cancel();
+        schedule();
+      }
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        context.runOnContext(v -> drain());
+      }
+    }
+
+    private void drain() {
+      int missed = 1;
+      while (true) {
+        long r = requested.get();
+        long emitted = 0L;
+        while (emitted != r) {
+          if (cancelled) {
+            queue.clear();
+            return;
+          }
+          boolean d = done;
+          T item = queue.poll();
+          if (item == null) {
+            if (d) {
+              terminate();
+              return;
+            }
+            break;
+          }
+          downstream.onNext(item);
+          emitted++;
+          if (++consumed == limit) {
+            consumed = 0;
+            upstream.request(limit);
+          }
+        }
+        if (cancelled) {
+          queue.clear();
+          return;
+        }
+        if (done && queue.isEmpty()) {
+          terminate();
+          return;
+        }
+        if (emitted > 0L && r != Long.MAX_VALUE) {
+          requested.addAndGet(-emitted);
+        }
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    private void terminate() {
+      // Leaves the work in progress counter set so nothing is delivered anymore
+      cancelled = true;
+      Throwable cause = failure;
+      if (cause != null) {
+        downstream.onError(cause);
+      } else {
+        downstream.onComplete();
+      }
+    }
+  }
+}
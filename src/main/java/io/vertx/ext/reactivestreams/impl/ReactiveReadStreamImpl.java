@@ -17,7 +17,10 @@
 package io.vertx.ext.reactivestreams.impl;
 
 import io.vertx.core.Handler;
+import io.vertx.ext.reactivestreams.LatencyHistogram;
 import io.vertx.ext.reactivestreams.ReactiveReadStream;
+import io.vertx.ext.reactivestreams.ReadStreamStats;
+import io.vertx.ext.reactivestreams.StreamTracer;
 import org.reactivestreams.Subscription;
 
 import java.util.ArrayDeque;
@@ -30,23 +33,50 @@ import java.util.Queue;
 public class ReactiveReadStreamImpl<T> implements ReactiveReadStream<T> {
 
   private final long batchSize;
+  private final long prefetch;
   private Handler<T> dataHandler;
   private Handler<Void> endHandler;
   private Handler<Throwable> exceptionHandler;
+  private Handler<T> releaseHandler;
 
   private Subscription subscription;
-  private final Queue<T> pending = new ArrayDeque<>();
-  private long demand = Long.MAX_VALUE;
-  private long tokens;
+  // Prefetched elements are held until a handler is set
+  private boolean holding;
+  // The end is signalled once the pending elements have been handled
+  private boolean completed;
+  private boolean ended;
+  // Allocated on the first element received while paused or held
+  Queue<T> pending;
+  // Volatile for stats
+  private volatile long demand = Long.MAX_VALUE;
+  private volatile long tokens;
+  private volatile int pendingSize;
+  private volatile long delivered;
+  private volatile StreamTracer tracer;
+  // Allocated when a latency histogram is set
+  private LatencySampler sampler;
 
   public ReactiveReadStreamImpl(long batchSize) {
+    this(batchSize, 0L);
+  }
+
+  public ReactiveReadStreamImpl(long batchSize, long prefetch) {
+    if (prefetch < 0L) {
+      throw new IllegalArgumentException("prefetch must be >= 0");
+    }
     this.batchSize = batchSize;
+    this.prefetch = prefetch;
+    this.holding = prefetch > 0L;
   }
 
   public synchronized ReactiveReadStream<T> handler(Handler<T> handler) {
     this.dataHandler = handler;
-    if (dataHandler != null && demand > 0L) {
-      checkRequestTokens();
+    if (dataHandler != null) {
+      holding = false;
+      handlePendingElements();
+      if (demand > 0L) {
+        checkRequestTokens();
+      }
     }
     return this;
   }
@@ -54,23 +84,19 @@ public class ReactiveReadStreamImpl<T> implements ReactiveReadStream<T> {
   @Override
   public synchronized ReactiveReadStream<T> pause() {
     this.demand = 0L;
+    trace(StreamTracer.Event.PAUSE, 0L);
     return this;
   }
 
   @Override
   public ReactiveReadStream<T> fetch(long amount) {
     if (amount > 0L) {
+      trace(StreamTracer.Event.RESUME, amount);
       demand += amount;
       if (demand < 0L) {
         demand = Long.MAX_VALUE;
       }
-      T data;
-      while (demand > 0L && (data = pending.poll()) != null) {
-        if (demand != Long.MAX_VALUE) {
-          demand--;
-        }
-        handleData(data);
-      }
+      handlePendingElements();
       checkRequestTokens();
     }
     return this;
@@ -93,6 +119,45 @@ public class ReactiveReadStreamImpl<T> implements ReactiveReadStream<T> {
     return this;
   }
 
+  @Override
+  public synchronized ReactiveReadStream<T> releaseHandler(Handler<T> handler) {
+    this.releaseHandler = handler;
+    return this;
+  }
+
+  @Override
+  public ReactiveReadStream<T> tracer(StreamTracer tracer) {
+    this.tracer = tracer;
+    return this;
+  }
+
+  @Override
+  public synchronized ReactiveReadStream<T> latencyHistogram(LatencyHistogram histogram, int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("sampleRate must be >= 1");
+    }
+    if (histogram == null) {
+      sampler = null;
+    } else {
+      sampler = new LatencySampler(histogram, sampleRate);
+      // The elements already pending are not counted as received
+      sampler.handled = -pendingSize();
+    }
+    return this;
+  }
+
+  @Override
+  public ReadStreamStats stats() {
+    return new ReadStreamStats(pendingSize, demand, tokens, delivered);
+  }
+
+  private void trace(StreamTracer.Event event, long value) {
+    StreamTracer t = tracer;
+    if (t != null) {
+      t.trace(this, event, value, System.nanoTime());
+    }
+  }
+
   @Override
   public synchronized void onSubscribe(Subscription subscription) {
     if (subscription == null) {
@@ -102,6 +167,12 @@ public class ReactiveReadStreamImpl<T> implements ReactiveReadStream<T> {
       subscription.cancel();
     } else {
       this.subscription = subscription;
+      if (holding) {
+        // Saves a round trip to the publisher when the handler is set
+        tokens = prefetch;
+        trace(StreamTracer.Event.REQUEST, prefetch);
+        subscription.request(prefetch);
+      }
     }
   }
 
@@ -111,17 +182,30 @@ public class ReactiveReadStreamImpl<T> implements ReactiveReadStream<T> {
       throw new NullPointerException("data");
     }
     checkUnsolicitedTokens();
-    if (demand > 0L) {
+    LatencySampler s = sampler;
+    if (s != null) {
+      long index = s.next();
+      if (index != -1L && s.sampleIndex == -1L) {
+        s.sampleIndex = index;
+        s.sampleTimestamp = System.nanoTime();
+      }
+    }
+    if (demand > 0L && !(holding && dataHandler == null)) {
       if (demand != Long.MAX_VALUE) {
         demand--;
       }
-      if (pending.size() > 0) {
+      if (pendingSize() > 0) {
         pending.add(data);
-        data = pending.poll();
+        handlePending();
+      } else {
+        handleData(data, 1);
       }
-      handleData(data);
     } else {
+      if (pending == null) {
+        pending = new ArrayDeque<>();
+      }
       pending.add(data);
+      pendingSize = pending.size();
     }
   }
 
@@ -137,8 +221,16 @@ public class ReactiveReadStreamImpl<T> implements ReactiveReadStream<T> {
 
   @Override
   public synchronized void onComplete() {
-    if (endHandler != null) {
-      endHandler.handle(null);
+    completed = true;
+    checkEnd();
+  }
+
+  private void checkEnd() {
+    if (completed && !ended && pendingSize() == 0) {
+      ended = true;
+      if (endHandler != null) {
+        endHandler.handle(null);
+      }
     }
   }
 
@@ -148,17 +240,65 @@ public class ReactiveReadStreamImpl<T> implements ReactiveReadStream<T> {
     }
   }
 
-  private synchronized void handleData(T data) {
+  int pendingSize() {
+    return pending == null ? 0 : pending.size();
+  }
+
+  synchronized boolean hasHandler() {
+    return dataHandler != null;
+  }
+
+  /**
+   * Handle the pending elements while there is demand, prefetched elements are held until a handler is set.
+   */
+  private void handlePendingElements() {
+    while (demand > 0L && pendingSize() > 0 && !(holding && dataHandler == null)) {
+      if (demand != Long.MAX_VALUE) {
+        demand--;
+      }
+      handlePending();
+    }
+    checkEnd();
+  }
+
+  /**
+   * Handle the head of the pending queue.
+   */
+  void handlePending() {
+    handleData(pending.poll(), 1);
+  }
+
+  /**
+   * Handle data made of {@code count} received elements.
+   */
+  synchronized void handleData(T data, int count) {
+    pendingSize = pendingSize();
+    LatencySampler s = sampler;
+    if (s != null) {
+      s.handled += count;
+      if (s.sampleIndex != -1L && s.handled > s.sampleIndex) {
+        // The handled data contains the sampled element
+        s.sampleIndex = -1L;
+        if (dataHandler != null) {
+          s.record(s.sampleTimestamp);
+        }
+      }
+    }
     if (dataHandler != null) {
       dataHandler.handle(data);
-      tokens--;
+      tokens -= count;
+      delivered += count;
+      trace(StreamTracer.Event.DELIVER, count);
       checkRequestTokens();
+    } else if (releaseHandler != null) {
+      releaseHandler.handle(data);
     }
   }
 
   private void checkRequestTokens() {
-    if (demand > 0L && subscription != null && tokens == 0) {
+    if (demand > 0L && subscription != null && tokens == 0 && !completed) {
       tokens = batchSize;
+      trace(StreamTracer.Event.REQUEST, batchSize);
       subscription.request(batchSize);
     }
   }
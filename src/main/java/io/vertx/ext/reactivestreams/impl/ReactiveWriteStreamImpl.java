@@ -19,31 +19,80 @@ package io.vertx.ext.reactivestreams.impl;
 import io.vertx.core.*;
 import io.vertx.core.internal.ContextInternal;
 import io.vertx.core.internal.net.NetSocketInternal;
+import io.vertx.ext.reactivestreams.DispatchMode;
+import io.vertx.ext.reactivestreams.LatencyHistogram;
 import io.vertx.ext.reactivestreams.ReactiveWriteStream;
+import io.vertx.ext.reactivestreams.StreamTracer;
+import io.vertx.ext.reactivestreams.WriteStreamStats;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
 public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
 
-  private final Set<SubscriptionImpl> subscriptions = ConcurrentHashMap.newKeySet();
-  private final Queue<Item<T>> pending = new ArrayDeque<>();
+  private static final VertxException NO_SUBSCRIBERS_EXCEPTION = new VertxException("No subscribers", true);
+  @SuppressWarnings("rawtypes")
+  private static final AtomicIntegerFieldUpdater<ReactiveWriteStreamImpl> WIP = AtomicIntegerFieldUpdater.newUpdater(ReactiveWriteStreamImpl.class, "wip");
+
+  // Copy on write, updated under the stream monitor, a single subscription is held by a singleton list
+  private volatile List<SubscriptionImpl> subscriptions = Collections.emptyList();
+  // Allocated on the first pending write
+  private Queue<Item<T>> pending;
+  private final Overflow<T> overflow;
+  // Elements being read back from the overflow
+  private int reloading;
+  // Incremented when the overflow is discarded, so a read completing afterwards is dropped
+  private int overflowEpoch;
   private Handler<Void> drainHandler;
+  private Handler<T> releaseHandler;
+  private boolean releaseAfterDelivery;
   private int writeQueueMaxSize = DEFAULT_WRITE_QUEUE_MAX_SIZE;
   protected final ContextInternal ctx;
-  private boolean closed;
+  private volatile boolean closed;
+  private Handler<Void> noSubscriberHandler;
+  private long noSubscriberTimeout;
+  private long noSubscriberTimer = -1L;
+  private long subscribeCount;
+  private boolean abandoned;
+  private Executor deliveryExecutor;
+  private DispatchMode dispatchMode = DispatchMode.BROADCAST;
+  private Function<? super T, ?> conflationKey;
+  // Index of the pending items by conflation key
+  private Map<Object, KeyedItem<T>> conflated;
+  // Next subscription index in round robin dispatch
+  private int turn;
+  // Requests signalled while a drain is in progress
+  private volatile int wip;
+  private volatile StreamTracer tracer;
+  // Allocated when a latency histogram is set
+  private LatencySampler sampler;
+  // Volatile for stats
+  private volatile int queuedSize;
+  private volatile long delivered;
 
   public ReactiveWriteStreamImpl(Vertx vertx) {
+    this(vertx, null);
+  }
+
+  public ReactiveWriteStreamImpl(Vertx vertx, Function<Context, Overflow<T>> overflowFactory) {
     ctx = (ContextInternal) vertx.getOrCreateContext();
+    this.overflow = overflowFactory == null ? null : overflowFactory.apply(ctx);
   }
 
   private void checkClosed() {
@@ -57,9 +106,18 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
     checkClosed();
     Objects.requireNonNull(subscriber);
 
-    SubscriptionImpl sub = new SubscriptionImpl(subscriber);
-    if (subscriptions.add(sub)) {
-      ctx.runOnContext(v -> {
+    SubscriptionImpl sub = new SubscriptionImpl(subscriber, deliveryExecutor == null ? null : new SerialExecutor(deliveryExecutor,
+      ctx::reportException,
+      // The executor does not signal the subscriber anymore
+      e -> ctx.runOnContext(v -> signalError(subscriber, e))));
+    if (addSubscription(sub)) {
+      subscribeCount++;
+      abandoned = false;
+      if (noSubscriberTimer != -1L) {
+        ctx.owner().cancelTimer(noSubscriberTimer);
+        noSubscriberTimer = -1L;
+      }
+      sub.signal(() -> {
         try {
           subscriber.onSubscribe(sub);
         } catch (Throwable t) {
@@ -74,12 +132,63 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
   @Override
   public synchronized Future<Void> write(T data) {
     checkClosed();
+    if (abandoned) {
+      release(data);
+      return ctx.failedFuture(NO_SUBSCRIBERS_EXCEPTION);
+    }
+    if (conflationKey != null) {
+      conflate(data);
+      checkSend();
+      return ctx.succeededFuture();
+    }
+    if (overflow != null && (overflow.size() > 0 || reloading > 0 || pendingSize() >= overflow.threshold())) {
+      // Spilled elements are not retained in memory, the write is complete once stored
+      Future<Void> stored = overflow.append(data);
+      release(data);
+      stored.onFailure(this::overflowFailure);
+      checkSend();
+      checkFull();
+      return stored;
+    }
     Promise<Void> promise = ctx.promise();
-    pending.add(new Item<>(data, promise));
+    if (pending == null) {
+      pending = new ArrayDeque<>();
+    }
+    LatencySampler s = sampler;
+    // Only the sampled writes pay for the timestamp
+    pending.add(s != null && s.next() != -1L ? new SampledItem<>(data, promise, System.nanoTime()) : new Item<>(data, promise));
     checkSend();
+    checkFull();
     return promise.future();
   }
 
+  private void conflate(T data) {
+    Object key = conflationKey.apply(data);
+    if (conflated == null) {
+      conflated = new HashMap<>();
+    }
+    KeyedItem<T> item = conflated.get(key);
+    if (item != null) {
+      // Keep the position of the superseded value in the queue
+      T superseded = item.value;
+      item.value = data;
+      release(superseded);
+    } else {
+      item = new KeyedItem<>(data, key);
+      conflated.put(key, item);
+      if (pending == null) {
+        pending = new ArrayDeque<>();
+      }
+      pending.add(item);
+    }
+  }
+
+  private void checkFull() {
+    if (tracer != null && queued() == writeQueueMaxSize) {
+      trace(StreamTracer.Event.PAUSE, 0L);
+    }
+  }
+
   @Override
   public synchronized ReactiveWriteStream<T> setWriteQueueMaxSize(int maxSize) {
     checkClosed();
@@ -93,7 +202,8 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
   @Override
   public synchronized boolean writeQueueFull() {
     checkClosed();
-    return pending.size() >= writeQueueMaxSize;
+    // Conflated writes never accumulate beyond the key cardinality
+    return conflationKey == null && queued() >= writeQueueMaxSize;
   }
 
   @Override
@@ -103,11 +213,176 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
     return this;
   }
 
+  @Override
+  public synchronized ReactiveWriteStream<T> releaseHandler(Handler<T> handler) {
+    checkClosed();
+    this.releaseHandler = handler;
+    return this;
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<T> setReleaseAfterDelivery(boolean releaseAfterDelivery) {
+    checkClosed();
+    this.releaseAfterDelivery = releaseAfterDelivery;
+    return this;
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<T> setConflationKey(Function<? super T, ?> keyExtractor) {
+    checkClosed();
+    if (overflow != null) {
+      throw new IllegalStateException("Conflation cannot be combined with an overflow file");
+    }
+    if (pendingSize() > 0) {
+      throw new IllegalStateException("Conflation must be configured before writing");
+    }
+    this.conflationKey = keyExtractor;
+    this.conflated = null;
+    return this;
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<T> setDispatchMode(DispatchMode mode) {
+    checkClosed();
+    this.dispatchMode = Objects.requireNonNull(mode);
+    return this;
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<T> setDeliveryExecutor(Executor executor) {
+    checkClosed();
+    this.deliveryExecutor = executor;
+    return this;
+  }
+
+  private void release(T element) {
+    Handler<T> handler = releaseHandler;
+    if (handler != null) {
+      handler.handle(element);
+    }
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<T> noSubscriberHandler(Handler<Void> handler) {
+    checkClosed();
+    this.noSubscriberHandler = handler;
+    return this;
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<T> setNoSubscriberTimeout(long timeout) {
+    checkClosed();
+    if (timeout < 0L) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    this.noSubscriberTimeout = timeout;
+    return this;
+  }
+
+  private synchronized boolean addSubscription(SubscriptionImpl sub) {
+    List<SubscriptionImpl> subs = subscriptions;
+    if (subs.contains(sub)) {
+      return false;
+    }
+    if (subs.isEmpty()) {
+      subscriptions = Collections.singletonList(sub);
+    } else {
+      List<SubscriptionImpl> copy = new ArrayList<>(subs.size() + 1);
+      copy.addAll(subs);
+      copy.add(sub);
+      subscriptions = copy;
+    }
+    return true;
+  }
+
+  private synchronized boolean removeSubscription(Subscriber<?> subscriber) {
+    List<SubscriptionImpl> subs = subscriptions;
+    List<SubscriptionImpl> copy = new ArrayList<>(subs.size());
+    for (SubscriptionImpl sub: subs) {
+      if (sub.subscriber != subscriber) {
+        copy.add(sub);
+      }
+    }
+    if (copy.size() == subs.size()) {
+      return false;
+    }
+    if (copy.isEmpty()) {
+      subscriptions = Collections.emptyList();
+    } else if (copy.size() == 1) {
+      subscriptions = Collections.singletonList(copy.get(0));
+    } else {
+      subscriptions = copy;
+    }
+    subscriptionRemoved();
+    return true;
+  }
+
+  private void subscriptionRemoved() {
+    if (noSubscriberHandler == null || closed || abandoned || !subscriptions.isEmpty()) {
+      return;
+    }
+    long count = subscribeCount;
+    if (noSubscriberTimeout > 0L) {
+      if (noSubscriberTimer != -1L) {
+        ctx.owner().cancelTimer(noSubscriberTimer);
+      }
+      noSubscriberTimer = ctx.setTimer(noSubscriberTimeout, id -> abandon(count));
+    } else {
+      ctx.runOnContext(v -> abandon(count));
+    }
+  }
+
+  private void abandon(long count) {
+    Handler<Void> handler;
+    synchronized (this) {
+      // A subscriber might have come and gone meanwhile
+      if (count != subscribeCount || closed || abandoned || !subscriptions.isEmpty() || noSubscriberHandler == null) {
+        return;
+      }
+      noSubscriberTimer = -1L;
+      abandoned = true;
+      handler = noSubscriberHandler;
+      clearPending(NO_SUBSCRIBERS_EXCEPTION);
+    }
+    ctx.runOnContext(v -> handler.handle(null));
+  }
+
   @Override
   public synchronized ReactiveWriteStream<T> exceptionHandler(Handler<Throwable> handler) {
     return this;
   }
 
+  @Override
+  public ReactiveWriteStream<T> tracer(StreamTracer tracer) {
+    this.tracer = tracer;
+    return this;
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<T> latencyHistogram(LatencyHistogram histogram, int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("sampleRate must be >= 1");
+    }
+    this.sampler = histogram == null ? null : new LatencySampler(histogram, sampleRate);
+    return this;
+  }
+
+  @Override
+  public WriteStreamStats stats() {
+    List<WriteStreamStats.SubscriberStats> subscribers = new ArrayList<>(subscriptions.size());
+    for (SubscriptionImpl sub: subscriptions) {
+      subscribers.add(new WriteStreamStats.SubscriberStats(sub.tokens(), sub.delivered));
+    }
+    return new WriteStreamStats(queuedSize, delivered, closed, subscribers);
+  }
+
+  private void trace(StreamTracer.Event event, long value) {
+    StreamTracer t = tracer;
+    if (t != null) {
+      t.trace(this, event, value, System.nanoTime());
+    }
+  }
+
   @Override
   public Future<Void> end() {
     close();
@@ -122,91 +397,330 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
       }
       closed = true;
       complete();
-      subscriptions.clear();
-      Future<Void> closedFut = Future.failedFuture(NetSocketInternal.CLOSED_EXCEPTION);
+      subscriptions = Collections.emptyList();
+      if (noSubscriberTimer != -1L) {
+        ctx.owner().cancelTimer(noSubscriberTimer);
+        noSubscriberTimer = -1L;
+      }
+      clearPending(NetSocketInternal.CLOSED_EXCEPTION);
+    }
+    return this;
+  }
+
+  private void clearPending(Throwable cause) {
+    if (pending != null) {
       for (Item<T> item: pending) {
+        discarded(item.value);
+        release(item.value);
         Completable<Void> handler = item.handler;
         if (handler != null) {
-          ctx.runOnContext(v -> {
-            if (closedFut.succeeded()) {
-              handler.succeed(closedFut.result());
-            } else {
-              handler.fail(closedFut.cause());
-            }
-          });
+          ctx.runOnContext(v -> handler.fail(cause));
         }
       }
       pending.clear();
     }
-    return this;
+    if (conflated != null) {
+      conflated.clear();
+    }
+    if (overflow != null) {
+      overflow.close();
+      reloading = 0;
+      overflowEpoch++;
+    }
+    queuedSize = 0;
+  }
+
+  private int pendingSize() {
+    return pending == null ? 0 : pending.size();
+  }
+
+  private int queued() {
+    return overflow == null ? pendingSize() : pendingSize() + reloading + overflow.size();
+  }
+
+  private Item<T> pollPending() {
+    Item<T> item = pending == null ? null : pending.poll();
+    if (item != null && conflated != null) {
+      conflated.remove(((KeyedItem<T>) item).key);
+    }
+    return item;
+  }
+
+  /**
+   * Read back the oldest overflow elements once the in-memory queue has room for them, the writes keep spilling
+   * until the overflow is drained so the order is preserved.
+   */
+  private void reload() {
+    if (overflow == null || reloading > 0 || overflow.size() == 0) {
+      return;
+    }
+    int room = Math.max(overflow.threshold(), 1) - pendingSize();
+    if (room > 0) {
+      int epoch = overflowEpoch;
+      reloading = Math.min(room, overflow.size());
+      overflow.poll(reloading).onComplete(ar -> reloaded(epoch, ar));
+    }
+  }
+
+  private synchronized void reloaded(int epoch, AsyncResult<List<T>> ar) {
+    if (epoch != overflowEpoch) {
+      // Discarded meanwhile
+      return;
+    }
+    reloading = 0;
+    if (ar.failed()) {
+      overflowFailure(ar.cause());
+      return;
+    }
+    if (pending == null) {
+      pending = new ArrayDeque<>();
+    }
+    for (T value: ar.result()) {
+      pending.add(new Item<>(value, null));
+    }
+    checkSend();
+  }
+
+  /**
+   * Concurrent and reentrant requests are coalesced: the thread draining loops until no request has been signalled
+   * meanwhile, the tokens accumulated by these requests are consumed by a single send.
+   * <p>
+   * A send throwing, e.g. a tracer or a subclass, resets the counter before propagating the failure so the next
+   * request drains again.
+   */
+  private void drain() {
+    if (WIP.getAndIncrement(this) != 0) {
+      return;
+    }
+    int missed = 1;
+    while (true) {
+      try {
+        checkSend();
+      } catch (Throwable t) {
+        WIP.set(this, 0);
+        throw t;
+      }
+      missed = WIP.addAndGet(this, -missed);
+      if (missed == 0) {
+        return;
+      }
+    }
   }
 
   private synchronized void checkSend() {
     if (!subscriptions.isEmpty()) {
-      long availableTokens = getAvailable();
-      long toSend = Math.min(availableTokens, pending.size());
-      takeTokens(toSend);
-      for (long i = 0; i < toSend; i++) {
-        sendToSubscribers(pending.poll());
+      long toSend = dispatchMode == DispatchMode.BROADCAST ? broadcast() : distribute();
+      if (toSend > 0L) {
+        trace(StreamTracer.Event.DELIVER, toSend);
       }
-      if (drainHandler != null && pending.size() < writeQueueMaxSize) {
+      if (drainHandler != null && queued() < writeQueueMaxSize) {
         callDrainHandler();
       }
     }
+    reload();
+    queuedSize = queued();
+  }
+
+  private long broadcast() {
+    List<SubscriptionImpl> subs = subscriptions;
+    long toSend = Math.min(getAvailable(), pendingSize());
+    takeTokens(toSend);
+    for (long i = 0; i < toSend; i++) {
+      sendToSubscribers(subs, 0, subs.size(), pollPending());
+    }
+    return toSend;
+  }
+
+  private long distribute() {
+    List<SubscriptionImpl> subs = subscriptions;
+    long sent = 0L;
+    while (pendingSize() > 0) {
+      int index = dispatchMode == DispatchMode.ROUND_ROBIN ? nextInTurn(subs) : mostDemand(subs);
+      if (index == -1) {
+        break;
+      }
+      subs.get(index).takeTokens(1);
+      sendToSubscribers(subs, index, index + 1, pollPending());
+      sent++;
+    }
+    return sent;
+  }
+
+  private int nextInTurn(List<SubscriptionImpl> subs) {
+    int size = subs.size();
+    for (int i = 0; i < size; i++) {
+      int index = (turn + i) % size;
+      if (subs.get(index).tokens() > 0L) {
+        turn = index + 1;
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private int mostDemand(List<SubscriptionImpl> subs) {
+    int index = -1;
+    long max = 0L;
+    for (int i = 0; i < subs.size(); i++) {
+      long tokens = subs.get(i).tokens();
+      if (tokens > max) {
+        max = tokens;
+        index = i;
+      }
+    }
+    return index;
+  }
+
+  private synchronized void overflowFailure(Throwable cause) {
+    if (closed) {
+      return;
+    }
+    for (SubscriptionImpl sub: subscriptions) {
+      sub.signal(() -> signalError(sub.subscriber, cause));
+    }
+    subscriptions = Collections.emptyList();
+    close();
   }
 
   private void callDrainHandler() {
     Handler<Void> dh = drainHandler;
+    trace(StreamTracer.Event.DRAIN, 0L);
     ctx.runOnContext(v -> dh.handle(null));
   }
 
   private long getAvailable() {
+    List<SubscriptionImpl> subs = subscriptions;
     long min = Long.MAX_VALUE;
-    for (SubscriptionImpl subscription: subscriptions) {
-      min = Math.min(subscription.tokens(), min);
+    for (int i = 0; i < subs.size(); i++) {
+      min = Math.min(subs.get(i).tokens(), min);
     }
     return min;
   }
 
   private void takeTokens(long toSend) {
-    for (SubscriptionImpl subscription: subscriptions) {
-      subscription.takeTokens(toSend);
+    List<SubscriptionImpl> subs = subscriptions;
+    for (int i = 0; i < subs.size(); i++) {
+      subs.get(i).takeTokens(toSend);
     }
   }
 
   private void complete() {
     for (SubscriptionImpl sub: subscriptions) {
-      ctx.runOnContext(v -> sub.subscriber.onComplete());
+      sub.signal(sub.subscriber::onComplete);
     }
   }
 
-  private void sendToSubscribers(Item<T> item) {
-    for (SubscriptionImpl sub: subscriptions) {
-      onNext(ctx, sub.subscriber, item.value);
+  /**
+   * Send an item to the subscriptions in the {@code [from, to)} range of {@code subs}.
+   */
+  private void sendToSubscribers(List<SubscriptionImpl> subs, int from, int to, Item<T> item) {
+    Handler<T> release = releaseAfterDelivery ? releaseHandler : null;
+    // Subscriptions delivering on an executor count down, the last one releases the element
+    AtomicInteger remaining = null;
+    // Sampled elements record the time from the write to each delivery
+    LatencySampler sampler = item instanceof SampledItem ? this.sampler : null;
+    long timestamp = sampler != null ? ((SampledItem<T>) item).timestamp : 0L;
+    for (int i = from; i < to; i++) {
+      SubscriptionImpl sub = subs.get(i);
+      sub.delivered++;
+      if (sub.executor == null) {
+        if (sampler != null) {
+          // Runs right before the onNext task
+          ctx.runOnContext(v -> sampler.record(timestamp));
+        }
+        onNext(ctx, sub.subscriber, item.value);
+      } else {
+        if (release != null && remaining == null) {
+          remaining = new AtomicInteger(to - from);
+        }
+        AtomicInteger countDown = remaining;
+        sub.executor.execute(() -> {
+          if (sampler != null) {
+            sampler.record(timestamp);
+          }
+          deliver(sub.subscriber, item.value);
+          if (countDown != null && countDown.decrementAndGet() == 0) {
+            release.handle(item.value);
+          }
+        });
+      }
+    }
+    delivered++;
+    sent(item.value);
+    if (release != null) {
+      if (remaining == null) {
+        // Runs after the onNext tasks scheduled on the same context
+        ctx.runOnContext(v -> release.handle(item.value));
+      } else {
+        // Account for the subscriptions delivering on the context
+        AtomicInteger countDown = remaining;
+        int onContext = 0;
+        for (int i = from; i < to; i++) {
+          if (subs.get(i).executor == null) {
+            onContext++;
+          }
+        }
+        if (onContext > 0) {
+          int count = onContext;
+          ctx.runOnContext(v -> {
+            if (countDown.addAndGet(-count) == 0) {
+              release.handle(item.value);
+            }
+          });
+        }
+      }
     }
     if (item.handler != null) {
       item.handler.succeed();
     }
   }
 
+  /**
+   * Called under the stream monitor when a pending element has been dispatched to the subscribers.
+   */
+  protected void sent(T data) {
+  }
+
+  /**
+   * Called under the stream monitor when a pending element is discarded because the stream is closed or has no
+   * subscribers anymore.
+   */
+  protected void discarded(T data) {
+  }
+
   protected void onNext(Context context, Subscriber<? super T> subscriber, T data) {
-    context.runOnContext(v -> {
-      try {
-        subscriber.onNext(data);
-      } catch (Throwable t) {
-        signalError(subscriber, t);
-      }
-    });
+    context.runOnContext(v -> deliver(subscriber, data));
+  }
+
+  private void deliver(Subscriber<? super T> subscriber, T data) {
+    try {
+      subscriber.onNext(data);
+    } catch (Throwable t) {
+      signalError(subscriber, t);
+    }
   }
 
   public class SubscriptionImpl implements Subscription {
 
     private final Subscriber<? super T> subscriber;
+    // Serial executor signalling the subscriber, null when signalled on the stream context
+    private final Executor executor;
     // We start at Long.MIN_VALUE so we know when we've requested more then Long.MAX_VALUE. See 3.17 of spec
     private final AtomicLong tokens = new AtomicLong(Long.MIN_VALUE);
+    // Updated under the stream monitor
+    private volatile long delivered;
 
-    private SubscriptionImpl(Subscriber<? super T> subscriber) {
+    private SubscriptionImpl(Subscriber<? super T> subscriber, Executor executor) {
       this.subscriber = subscriber;
+      this.executor = executor;
+    }
+
+    void signal(Runnable task) {
+      if (executor == null) {
+        ctx.runOnContext(v -> task.run());
+      } else {
+        executor.execute(task);
+      }
     }
 
     public long tokens() {
@@ -220,11 +734,12 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
     @Override
     public void request(long n) {
       if (n > 0) {
+        trace(StreamTracer.Event.REQUEST, n);
         // More then Long.MAX_VALUE pending
         if (tokens.addAndGet(n) > 0) {
           signalError(subscriber, new IllegalStateException("3.17 Subscriber has more then Long.MAX_VALUE (2^63-1) currently pending."));
         } else {
-          checkSend();
+          drain();
         }
       } else {
         signalError(subscriber, new IllegalArgumentException("3.9 Subscriber cannot request less then 1 for the number of elements."));
@@ -233,7 +748,8 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
 
     @Override
     public void cancel() {
-      subscriptions.remove(this);
+      trace(StreamTracer.Event.CANCEL, 0L);
+      removeSubscription(subscriber);
     }
 
     @Override
@@ -254,12 +770,13 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
   }
 
   private void signalError(Subscriber<? super T> subscriber, Throwable error) {
-    subscriptions.removeIf(sub -> sub.subscriber == subscriber);
+    removeSubscription(subscriber);
     subscriber.onError(error);
   }
 
   static class Item<T> {
-    final T value;
+    // Replaced by newer values in conflation mode
+    T value;
     final Completable<Void> handler;
     Item(T value, Completable<Void> handler) {
       this.value = value;
@@ -267,4 +784,21 @@ public class ReactiveWriteStreamImpl<T> implements ReactiveWriteStream<T> {
     }
   }
 
+  static class SampledItem<T> extends Item<T> {
+    // The write System.nanoTime() of an element sampled for latency
+    final long timestamp;
+    SampledItem(T value, Completable<Void> handler, long timestamp) {
+      super(value, handler);
+      this.timestamp = timestamp;
+    }
+  }
+
+  static class KeyedItem<T> extends Item<T> {
+    final Object key;
+    KeyedItem(T value, Object key) {
+      super(value, null);
+      this.key = key;
+    }
+  }
+
 }
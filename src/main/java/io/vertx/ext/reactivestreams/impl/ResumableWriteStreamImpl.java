@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.ReactiveWriteStream;
+import io.vertx.ext.reactivestreams.ResumableWriteStream;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A write stream retaining the last buffers written.
+ * <p>
+ * A resuming subscriber is given a backlog made of the retained bytes between its offset and the offset of the
+ * first buffer not yet dispatched, and is subscribed to the stream for the subsequent buffers. Both happen under the
+ * stream monitor so no buffer is missed or duplicated.
+ */
+public class ResumableWriteStreamImpl extends ReactiveWriteStreamImpl<Buffer> implements ResumableWriteStream {
+
+  private static final Subscription NOOP = new Subscription() {
+    @Override
+    public void request(long n) {
+    }
+    @Override
+    public void cancel() {
+    }
+  };
+
+  private final long retainedBytes;
+  private final ArrayDeque<Buffer> retained = new ArrayDeque<>();
+  private long retainedStart;
+  private long retainedSize;
+  // Bytes queued and not yet dispatched
+  private long pendingBytes;
+  // Offset of the first buffer not yet dispatched to the subscribers
+  private long sentOffset;
+
+  public ResumableWriteStreamImpl(Vertx vertx, long retainedBytes) {
+    super(vertx);
+    if (retainedBytes < 0L) {
+      throw new IllegalArgumentException("retainedBytes must be >= 0");
+    }
+    this.retainedBytes = retainedBytes;
+  }
+
+  @Override
+  public synchronized Future<Void> write(Buffer data) {
+    Future<Void> fut = super.write(data);
+    // A write failing immediately was not queued, e.g. the stream is abandoned
+    if (!fut.failed()) {
+      pendingBytes += data.length();
+    }
+    return fut;
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<Buffer> setReleaseAfterDelivery(boolean releaseAfterDelivery) {
+    if (releaseAfterDelivery) {
+      throw new IllegalStateException("Release after delivery cannot be combined with retained buffers");
+    }
+    return super.setReleaseAfterDelivery(false);
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<Buffer> setDeliveryExecutor(Executor executor) {
+    if (executor != null) {
+      throw new IllegalStateException("A delivery executor cannot be combined with the backlog delivered on the stream context");
+    }
+    return super.setDeliveryExecutor(null);
+  }
+
+  @Override
+  public synchronized ReactiveWriteStream<Buffer> setConflationKey(Function<? super Buffer, ?> keyExtractor) {
+    if (keyExtractor != null) {
+      throw new IllegalStateException("Conflation cannot be combined with byte offsets");
+    }
+    return super.setConflationKey(null);
+  }
+
+  @Override
+  protected void discarded(Buffer data) {
+    pendingBytes -= data.length();
+  }
+
+  @Override
+  protected void sent(Buffer data) {
+    // Called within write() before the bytes are accounted as pending when the buffer is dispatched right away
+    pendingBytes -= data.length();
+    sentOffset += data.length();
+    retained.add(data);
+    retainedSize += data.length();
+    while (!retained.isEmpty() && retainedSize - retained.peek().length() >= retainedBytes) {
+      Buffer first = retained.poll();
+      retainedStart += first.length();
+      retainedSize -= first.length();
+    }
+  }
+
+  @Override
+  public synchronized long offset() {
+    return sentOffset + pendingBytes;
+  }
+
+  @Override
+  public Publisher<Buffer> from(long offset) {
+    return subscriber -> subscribe(subscriber, offset);
+  }
+
+  private synchronized void subscribe(Subscriber<? super Buffer> subscriber, long from) {
+    Objects.requireNonNull(subscriber);
+    if (from < retainedStart || from > sentOffset) {
+      ctx.runOnContext(v -> {
+        subscriber.onSubscribe(NOOP);
+        subscriber.onError(new IllegalArgumentException("Offset " + from + " is not retained"));
+      });
+      return;
+    }
+    ArrayDeque<Buffer> backlog = new ArrayDeque<>();
+    long position = retainedStart;
+    for (Buffer buffer: retained) {
+      long end = position + buffer.length();
+      if (end > from) {
+        backlog.add(position < from ? buffer.slice((int) (from - position), buffer.length()) : buffer);
+      }
+      position = end;
+    }
+    subscribe(new BacklogSubscriber(subscriber, backlog));
+  }
+
+  /**
+   * Delivers the backlog before passing the demand to the stream subscription, the backlog and the stream elements
+   * are both signalled on the stream context so they are delivered in order.
+   */
+  private class BacklogSubscriber implements Subscriber<Buffer>, Subscription {
+
+    private final Subscriber<? super Buffer> subscriber;
+    private final ArrayDeque<Buffer> backlog;
+    private Subscription subscription;
+    // Backlog elements scheduled for delivery
+    private int inFlight;
+    private boolean completed;
+    private Throwable failure;
+
+    BacklogSubscriber(Subscriber<? super Buffer> subscriber, ArrayDeque<Buffer> backlog) {
+      this.subscriber = subscriber;
+      this.backlog = backlog;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      synchronized (this) {
+        this.subscription = subscription;
+      }
+      subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        // Let the stream subscription signal the violation
+        subscription.request(n);
+        return;
+      }
+      Buffer[] batch;
+      long remaining;
+      synchronized (this) {
+        int size = (int) Math.min(n, backlog.size());
+        batch = new Buffer[size];
+        for (int i = 0; i < size; i++) {
+          batch[i] = backlog.poll();
+        }
+        inFlight += size;
+        remaining = n - size;
+      }
+      if (batch.length > 0) {
+        ctx.runOnContext(v -> {
+          for (Buffer buffer: batch) {
+            subscriber.onNext(buffer);
+          }
+          synchronized (this) {
+            inFlight -= batch.length;
+          }
+          checkTerminated();
+        });
+      }
+      if (remaining > 0L) {
+        subscription.request(remaining);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      synchronized (this) {
+        backlog.clear();
+      }
+      subscription.cancel();
+    }
+
+    @Override
+    public void onNext(Buffer buffer) {
+      subscriber.onNext(buffer);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      synchronized (this) {
+        failure = throwable;
+      }
+      checkTerminated();
+    }
+
+    @Override
+    public void onComplete() {
+      synchronized (this) {
+        completed = true;
+      }
+      checkTerminated();
+    }
+
+    /**
+     * Signal the end of the stream once the backlog has been delivered.
+     */
+    private void checkTerminated() {
+      Throwable cause;
+      synchronized (this) {
+        if (!backlog.isEmpty() || inFlight > 0 || !(completed || failure != null)) {
+          return;
+        }
+        cause = failure;
+        completed = false;
+        failure = null;
+      }
+      if (cause != null) {
+        subscriber.onError(cause);
+      } else {
+        subscriber.onComplete();
+      }
+    }
+  }
+}
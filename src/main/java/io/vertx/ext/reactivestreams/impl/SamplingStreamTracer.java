@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.ext.reactivestreams.StreamTracer;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples the deliveries, they are the only high rate events. The decision does not rely on shared state so a
+ * sampling tracer can be used by many streams.
+ */
+public class SamplingStreamTracer implements StreamTracer {
+
+  private final StreamTracer tracer;
+  private final int rate;
+
+  public SamplingStreamTracer(StreamTracer tracer, int rate) {
+    if (rate < 1) {
+      throw new IllegalArgumentException("rate must be >= 1");
+    }
+    this.tracer = Objects.requireNonNull(tracer);
+    this.rate = rate;
+  }
+
+  @Override
+  public void trace(Object stream, Event event, long value, long timestamp) {
+    if (event != Event.DELIVER || rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0) {
+      tracer.trace(stream, event, value, timestamp);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Handler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks one after the other on a delegate executor.
+ * <p>
+ * A single delegate task drains the tasks submitted until the queue is empty, so a batch of tasks costs
+ * one hand-off to the delegate. A task throwing is reported to the exception handler and the next tasks still run.
+ * When the delegate rejects the drain task the executor is terminated: the pending and subsequent tasks are
+ * discarded and the rejection is reported to the rejection handler.
+ */
+class SerialExecutor implements Executor {
+
+  private final Executor delegate;
+  private final Handler<Throwable> exceptionHandler;
+  private final Handler<RejectedExecutionException> rejectionHandler;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wip = new AtomicInteger();
+  private volatile boolean rejected;
+
+  SerialExecutor(Executor delegate, Handler<Throwable> exceptionHandler, Handler<RejectedExecutionException> rejectionHandler) {
+    this.delegate = delegate;
+    this.exceptionHandler = exceptionHandler;
+    this.rejectionHandler = rejectionHandler;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    if (rejected) {
+      return;
+    }
+    tasks.add(task);
+    if (wip.getAndIncrement() == 0) {
+      try {
+        delegate.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        // No drain runs, the tasks submitted meanwhile are discarded too
+        rejected = true;
+        tasks.clear();
+        wip.set(0);
+        rejectionHandler.handle(e);
+      }
+    }
+  }
+
+  private void drain() {
+    int missed = 1;
+    while (true) {
+      for (int i = 0; i < missed; i++) {
+        Runnable task = tasks.poll();
+        if (task == null) {
+          // Discarded after a rejection
+          continue;
+        }
+        try {
+          task.run();
+        } catch (Throwable t) {
+          exceptionHandler.handle(t);
+        }
+      }
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+}
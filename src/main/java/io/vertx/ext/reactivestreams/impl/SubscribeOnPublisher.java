@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Context;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscribes to a publisher and requests its elements on a context, the signals of the publisher are passed as is.
+ * <p>
+ * The requests made while a request task is pending are coalesced into that task.
+ */
+public class SubscribeOnPublisher<T> implements Publisher<T> {
+
+  private final Publisher<T> source;
+  private final Context context;
+
+  public SubscribeOnPublisher(Publisher<T> source, Context context) {
+    this.source = Objects.requireNonNull(source);
+    this.context = Objects.requireNonNull(context);
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber);
+    context.runOnContext(v -> source.subscribe(new SubscribeOnSubscription(subscriber)));
+  }
+
+  private class SubscribeOnSubscription implements Subscriber<T>, Subscription {
+
+    private final Subscriber<? super T> downstream;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Subscription upstream;
+
+    SubscribeOnSubscription(Subscriber<? super T> downstream) {
+      this.downstream = downstream;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      if (subscription == null) {
+        throw new NullPointerException("subscription");
+      }
+      if (upstream != null) {
+        subscription.cancel();
+        return;
+      }
+      upstream = subscription;
+      downstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T item) {
+      downstream.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      downstream.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      downstream.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        // Let the source signal the violation
+        context.runOnContext(v -> upstream.request(n));
+        return;
+      }
+      PublishOnPublisher.addRequested(requested, n);
+      if (wip.getAndIncrement() == 0) {
+        context.runOnContext(v -> flush());
+      }
+    }
+
+    private void flush() {
+      int missed = 1;
+      while (true) {
+        long n = requested.getAndSet(0L);
+        if (n > 0L) {
+          upstream.request(n);
+        }
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void cancel() {
+      context.runOnContext(v -> upstream.cancel());
+    }
+  }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.buffer.BufferInternal;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Incrementally compresses or decompresses buffers, the output is emitted in chunks of a target size.
+ * <p>
+ * The {@link Deflater} and {@link Inflater} instances are taken from a pool and returned to it when the codec is
+ * {@link #release() released}. Failures are reported with a {@link VertxException}.
+ */
+public abstract class ZipCodec {
+
+  private static final int MAX_POOLED = 32;
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+  private static final Pool<Deflater> DEFLATERS = new Pool<>();
+  private static final Pool<Deflater> RAW_DEFLATERS = new Pool<>();
+  private static final Pool<Inflater> INFLATERS = new Pool<>();
+  private static final Pool<Inflater> RAW_INFLATERS = new Pool<>();
+
+  /**
+   * Create a codec compressing to the gzip ({@code gzip == true}) or zlib format.
+   */
+  public static ZipCodec compressor(boolean gzip, int chunkSize) {
+    return new Compressor(gzip, chunkSize);
+  }
+
+  /**
+   * Create a codec decompressing the gzip ({@code gzip == true}) or zlib format.
+   */
+  public static ZipCodec decompressor(boolean gzip, int chunkSize) {
+    return new Decompressor(gzip, chunkSize);
+  }
+
+  private final int chunkSize;
+  private byte[] chunk;
+  private int position;
+
+  ZipCodec(int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be >= 1");
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Process {@code data}, the chunks filled are emitted to {@code output}.
+   */
+  public void write(Buffer data, Handler<Buffer> output) {
+    for (ByteBuffer input: ((BufferInternal) data).getByteBuf().nioBuffers()) {
+      process(input, output);
+    }
+  }
+
+  /**
+   * Process the end of the input and emit the last chunks to {@code output}, the codec is released.
+   */
+  public void end(Handler<Buffer> output) {
+    try {
+      finish(output);
+      if (position > 0) {
+        output.handle(Buffer.buffer(Arrays.copyOf(chunk, position)));
+        chunk = null;
+        position = 0;
+      }
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Return the pooled instances of this codec, this can be called several times.
+   */
+  public abstract void release();
+
+  abstract void process(ByteBuffer input, Handler<Buffer> output);
+
+  abstract void finish(Handler<Buffer> output);
+
+  /**
+   * @return the chunk being filled with {@code position()} pointing at the first free byte
+   */
+  ByteBuffer output() {
+    if (chunk == null) {
+      chunk = new byte[chunkSize];
+    }
+    return ByteBuffer.wrap(chunk, position, chunkSize - position);
+  }
+
+  /**
+   * Account the bytes written in the {@link #output()} chunk and emit it when full.
+   */
+  void produced(ByteBuffer out, Handler<Buffer> output) {
+    position = out.position();
+    if (position == chunkSize) {
+      byte[] full = chunk;
+      chunk = null;
+      position = 0;
+      output.handle(Buffer.buffer(full));
+    }
+  }
+
+  void put(byte[] bytes, Handler<Buffer> output) {
+    for (int i = 0; i < bytes.length; ) {
+      ByteBuffer out = output();
+      int len = Math.min(out.remaining(), bytes.length - i);
+      out.put(bytes, i, len);
+      i += len;
+      produced(out, output);
+    }
+  }
+
+  private static class Compressor extends ZipCodec {
+
+    private final boolean gzip;
+    private final CRC32 crc;
+    private Deflater deflater;
+    private boolean started;
+
+    Compressor(boolean gzip, int chunkSize) {
+      super(chunkSize);
+      this.gzip = gzip;
+      this.crc = gzip ? new CRC32() : null;
+      this.deflater = gzip ? RAW_DEFLATERS.take() : DEFLATERS.take();
+      if (deflater == null) {
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+      }
+    }
+
+    private void start(Handler<Buffer> output) {
+      if (!started) {
+        started = true;
+        if (gzip) {
+          put(GZIP_HEADER, output);
+        }
+      }
+    }
+
+    @Override
+    void process(ByteBuffer input, Handler<Buffer> output) {
+      start(output);
+      if (gzip) {
+        crc.update(input.duplicate());
+      }
+      deflater.setInput(input);
+      while (!deflater.needsInput()) {
+        ByteBuffer out = output();
+        deflater.deflate(out);
+        produced(out, output);
+      }
+    }
+
+    @Override
+    void finish(Handler<Buffer> output) {
+      start(output);
+      deflater.finish();
+      while (!deflater.finished()) {
+        ByteBuffer out = output();
+        deflater.deflate(out);
+        produced(out, output);
+      }
+      if (gzip) {
+        int value = (int) crc.getValue();
+        int size = (int) deflater.getBytesRead();
+        put(new byte[] {
+          (byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24),
+          (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+        }, output);
+      }
+    }
+
+    @Override
+    public void release() {
+      if (deflater != null) {
+        deflater.reset();
+        if (!(gzip ? RAW_DEFLATERS : DEFLATERS).give(deflater)) {
+          deflater.end();
+        }
+        deflater = null;
+      }
+    }
+  }
+
+  private static class Decompressor extends ZipCodec {
+
+    // Gzip header and trailer parsing states
+    private static final int FIXED_HEADER = 0, EXTRA_LENGTH = 1, EXTRA = 2, NAME = 3, COMMENT = 4, HEADER_CRC = 5,
+      BODY = 6, TRAILER = 7, DONE = 8;
+    private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+    private final boolean gzip;
+    private final CRC32 crc;
+    private Inflater inflater;
+    private int state;
+    private final byte[] scratch = new byte[10];
+    private int scratchSize;
+    private int flags;
+    private int skip;
+
+    Decompressor(boolean gzip, int chunkSize) {
+      super(chunkSize);
+      this.gzip = gzip;
+      this.crc = gzip ? new CRC32() : null;
+      this.state = gzip ? FIXED_HEADER : BODY;
+      this.inflater = gzip ? RAW_INFLATERS.take() : INFLATERS.take();
+      if (inflater == null) {
+        inflater = new Inflater(gzip);
+      }
+    }
+
+    @Override
+    void process(ByteBuffer input, Handler<Buffer> output) {
+      while (input.hasRemaining()) {
+        switch (state) {
+          case FIXED_HEADER:
+            if (fill(input, 10)) {
+              if (scratch[0] != 0x1f || scratch[1] != (byte) 0x8b || scratch[2] != Deflater.DEFLATED) {
+                throw new VertxException("Not in gzip format", true);
+              }
+              flags = scratch[3] & 0xff;
+              nextHeaderState(EXTRA_LENGTH);
+            }
+            break;
+          case EXTRA_LENGTH:
+            if (fill(input, 2)) {
+              skip = (scratch[0] & 0xff) | (scratch[1] & 0xff) << 8;
+              state = EXTRA;
+            }
+            break;
+          case EXTRA:
+            int len = Math.min(skip, input.remaining());
+            input.position(input.position() + len);
+            skip -= len;
+            if (skip == 0) {
+              nextHeaderState(NAME);
+            }
+            break;
+          case NAME:
+          case COMMENT:
+            if (input.get() == 0) {
+              nextHeaderState(state + 1);
+            }
+            break;
+          case HEADER_CRC:
+            if (fill(input, 2)) {
+              state = BODY;
+            }
+            break;
+          case BODY:
+            inflate(input, output);
+            break;
+          case TRAILER:
+            if (fill(input, 8)) {
+              if (readInt(0) != (int) crc.getValue() || readInt(4) != (int) inflater.getBytesWritten()) {
+                throw new VertxException("Corrupt gzip trailer", true);
+              }
+              state = DONE;
+            }
+            break;
+          default:
+            // Ignore trailing garbage
+            input.position(input.limit());
+            break;
+        }
+      }
+    }
+
+    private void nextHeaderState(int next) {
+      // Skip the optional header fields that are absent
+      int[] fields = { 0, FEXTRA, 0, FNAME, FCOMMENT, FHCRC };
+      while (next < BODY && (flags & fields[next]) == 0) {
+        next = next == EXTRA_LENGTH ? NAME : next + 1;
+      }
+      state = next;
+    }
+
+    private boolean fill(ByteBuffer input, int size) {
+      int len = Math.min(size - scratchSize, input.remaining());
+      input.get(scratch, scratchSize, len);
+      scratchSize += len;
+      if (scratchSize == size) {
+        scratchSize = 0;
+        return true;
+      }
+      return false;
+    }
+
+    private int readInt(int offset) {
+      return (scratch[offset] & 0xff) | (scratch[offset + 1] & 0xff) << 8 | (scratch[offset + 2] & 0xff) << 16 | (scratch[offset + 3] & 0xff) << 24;
+    }
+
+    private void inflate(ByteBuffer input, Handler<Buffer> output) {
+      inflater.setInput(input);
+      try {
+        while (true) {
+          ByteBuffer out = output();
+          int start = out.position();
+          int n = inflater.inflate(out);
+          if (gzip && n > 0) {
+            crc.update(chunkBytes(out, start));
+          }
+          produced(out, output);
+          if (inflater.finished()) {
+            state = gzip ? TRAILER : DONE;
+            return;
+          }
+          if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            if (inflater.needsDictionary()) {
+              throw new VertxException("Dictionary not supported", true);
+            }
+            return;
+          }
+        }
+      } catch (DataFormatException e) {
+        throw new VertxException(e);
+      }
+    }
+
+    private static ByteBuffer chunkBytes(ByteBuffer out, int start) {
+      ByteBuffer written = out.duplicate();
+      written.flip().position(start);
+      return written;
+    }
+
+    @Override
+    void finish(Handler<Buffer> output) {
+      if (state != DONE) {
+        throw new VertxException("Truncated compressed stream", true);
+      }
+    }
+
+    @Override
+    public void release() {
+      if (inflater != null) {
+        inflater.reset();
+        if (!(gzip ? RAW_INFLATERS : INFLATERS).give(inflater)) {
+          inflater.end();
+        }
+        inflater = null;
+      }
+    }
+  }
+
+  private static class Pool<T> {
+
+    private final Queue<T> instances = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    T take() {
+      T instance = instances.poll();
+      if (instance != null) {
+        size.decrementAndGet();
+      }
+      return instance;
+    }
+
+    /**
+     * @return {@code false} when the pool is full and the instance should be disposed
+     */
+    boolean give(T instance) {
+      if (size.incrementAndGet() <= MAX_POOLED) {
+        instances.add(instance);
+        return true;
+      }
+      size.decrementAndGet();
+      return false;
+    }
+  }
+}
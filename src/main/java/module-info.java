@@ -1,7 +1,9 @@
 open module io.vertx.reactivestreams {
 
   requires static io.vertx.docgen;
+  requires static jdk.jfr;
 
+  requires io.netty.buffer;
   requires io.vertx.core;
   requires org.reactivestreams;
 
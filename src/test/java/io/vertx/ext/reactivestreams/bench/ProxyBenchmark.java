@@ -0,0 +1,227 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.reactivestreams.bench;
+
+import com.sun.management.ThreadMXBean;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.ext.reactivestreams.ReactiveReadStream;
+import io.vertx.ext.reactivestreams.ReactiveWriteStream;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback HTTP benchmark of the reactive streams bridges.
+ * <p>
+ * A server echoes the request body in the response, either with {@code request.pipeTo(response)} (the baseline) or
+ * through the bridges: the request is piped to a {@link ReactiveWriteStream} subscribed by a
+ * {@link ReactiveReadStream} piped to the response. A client keeps a number of requests in flight for each body size
+ * and reports the throughput, the latency percentiles and the allocation rate of the process.
+ * <p>
+ * Run the {@link #main} method with the test classpath, the optional arguments are the duration of a run in seconds
+ * (default 5) and the number of requests in flight (default 16). Each run is preceded by a warm-up run.
+ */
+public class ProxyBenchmark {
+
+  private static final int[] SIZES = { 1024, 64 * 1024, 1024 * 1024 };
+
+  enum Mode {
+    PIPE, BRIDGE
+  }
+
+  public static void main(String[] args) throws Exception {
+    int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+    int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+    Vertx vertx = Vertx.vertx();
+    try {
+      Map<Mode, Integer> ports = new EnumMap<>(Mode.class);
+      for (Mode mode: Mode.values()) {
+        ports.put(mode, startServer(vertx, mode));
+      }
+      HttpClient client = vertx.createHttpClient(new HttpClientOptions(), new PoolOptions().setHttp1MaxSize(concurrency));
+      System.out.printf("%-8s %10s %10s %10s %10s %10s %12s%n", "mode", "size", "req/s", "MB/s", "p50 (us)", "p99 (us)", "alloc MB/s");
+      for (int size: SIZES) {
+        Buffer body = Buffer.buffer(new byte[size]);
+        for (Mode mode: Mode.values()) {
+          int port = ports.get(mode);
+          run(client, port, body, concurrency, seconds);
+          Result result = run(client, port, body, concurrency, seconds);
+          System.out.printf("%-8s %10d %10.0f %10.1f %10d %10d %12.1f%n", mode, size, result.throughput(),
+            result.throughput() * size / 1_000_000, result.percentile(0.50) / 1000, result.percentile(0.99) / 1000,
+            result.allocated / result.seconds() / 1_000_000);
+          if (result.failures > 0) {
+            System.out.printf("%d failed or truncated requests%n", result.failures);
+          }
+        }
+      }
+    } finally {
+      vertx.close().toCompletionStage().toCompletableFuture().get();
+    }
+  }
+
+  private static int startServer(Vertx vertx, Mode mode) throws Exception {
+    return vertx.createHttpServer()
+      .requestHandler(request -> echo(vertx, mode, request))
+      .listen(0, "localhost")
+      .toCompletionStage()
+      .toCompletableFuture()
+      .get()
+      .actualPort();
+  }
+
+  private static void echo(Vertx vertx, Mode mode, HttpServerRequest request) {
+    HttpServerResponse response = request.response();
+    String length = request.getHeader("content-length");
+    if (length != null) {
+      response.putHeader("content-length", length);
+    } else {
+      response.setChunked(true);
+    }
+    switch (mode) {
+      case PIPE:
+        request.pipeTo(response);
+        break;
+      case BRIDGE:
+        ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+        ReactiveReadStream<Buffer> rrs = ReactiveReadStream.readStream();
+        rws.subscribe(rrs);
+        // Ending the write stream drops its pending buffers, end it once they have been sent
+        request.pipe().endOnComplete(false).to(rws).onSuccess(v -> endWhenSent(rws));
+        rrs.pipeTo(response);
+        break;
+    }
+  }
+
+  private static void endWhenSent(ReactiveWriteStream<Buffer> rws) {
+    if (rws.stats().pending() == 0) {
+      rws.end();
+    } else {
+      // Called after each delivery to the subscriber
+      rws.drainHandler(v -> {
+        if (rws.stats().pending() == 0) {
+          rws.end();
+        }
+      });
+    }
+  }
+
+  private static Result run(HttpClient client, int port, Buffer body, int concurrency, int seconds) throws InterruptedException {
+    Result result = new Result();
+    CountDownLatch done = new CountDownLatch(concurrency);
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+    long allocated = allocatedBytes();
+    for (int i = 0; i < concurrency; i++) {
+      send(client, port, body, deadline, result, done);
+    }
+    done.await();
+    result.allocated = allocatedBytes() - allocated;
+    result.elapsed = System.nanoTime() - start;
+    return result;
+  }
+
+  private static void send(HttpClient client, int port, Buffer body, long deadline, Result result, CountDownLatch done) {
+    long start = System.nanoTime();
+    client.request(HttpMethod.POST, port, "localhost", "/")
+      .compose(request -> request.send(body))
+      .compose(response -> {
+        // Discard the echoed body, a truncated body fails the request
+        long[] received = new long[1];
+        response.handler(chunk -> received[0] += chunk.length());
+        return response.end().compose(v -> received[0] == body.length() ? Future.succeededFuture() :
+          Future.failedFuture("Received " + received[0] + " bytes instead of " + body.length()));
+      })
+      .onComplete(ar -> {
+        long now = System.nanoTime();
+        result.record(ar.succeeded() ? now - start : -1L);
+        if (now < deadline) {
+          send(client, port, body, deadline, result, done);
+        } else {
+          done.countDown();
+        }
+      });
+  }
+
+  /**
+   * @return the bytes allocated by the live threads of the process, the allocations of the threads that died
+   *         meanwhile are not accounted
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long total = 0L;
+    for (long allocated: bean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+      if (allocated > 0L) {
+        total += allocated;
+      }
+    }
+    return total;
+  }
+
+  private static class Result {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private int failures;
+    private long allocated;
+    private long elapsed;
+
+    /**
+     * @param latency  the latency in nanoseconds or {@code -1} for a failed request
+     */
+    synchronized void record(long latency) {
+      if (latency < 0L) {
+        failures++;
+        return;
+      }
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = latency;
+    }
+
+    double seconds() {
+      return elapsed / 1e9;
+    }
+
+    synchronized double throughput() {
+      return count / seconds();
+    }
+
+    /**
+     * @return the latency percentile in nanoseconds
+     */
+    synchronized long percentile(double percentile) {
+      if (count == 0) {
+        return 0L;
+      }
+      long[] sorted = Arrays.copyOf(latencies, count);
+      Arrays.sort(sorted);
+      return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+    }
+  }
+}
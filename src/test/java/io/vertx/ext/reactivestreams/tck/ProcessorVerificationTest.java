@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package io.vertx.ext.reactivestreams.tck;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.ReactiveProcessor;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.reactivestreams.tck.IdentityProcessorVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Verifies the map processor, mapping with the identity function.
+ */
+public class ProcessorVerificationTest extends IdentityProcessorVerification<Buffer> {
+
+  private static final long DEFAULT_TIMEOUT = 300L;
+  private static final long DEFAULT_GC_TIMEOUT = 1000L;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  public ProcessorVerificationTest() {
+    super(new TestEnvironment(DEFAULT_TIMEOUT), DEFAULT_GC_TIMEOUT);
+  }
+
+  @AfterClass
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public Processor<Buffer, Buffer> createIdentityProcessor(int bufferSize) {
+    return ReactiveProcessor.processor(Function.identity());
+  }
+
+  @Override
+  public Publisher<Buffer> createFailedPublisher() {
+    ReactiveProcessor<Buffer, Buffer> processor = ReactiveProcessor.processor(Function.identity());
+    processor.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+      }
+      @Override
+      public void cancel() {
+      }
+    });
+    processor.onError(new RuntimeException("Can't subscribe, because of reasons."));
+    return processor;
+  }
+
+  @Override
+  public ExecutorService publisherExecutorService() {
+    return executor;
+  }
+
+  @Override
+  public Buffer createElement(int element) {
+    return Buffer.buffer("element" + element);
+  }
+
+  @Override
+  public long maxSupportedSubscribers() {
+    // The processor accepts a single subscriber
+    return 1L;
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.test;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.reactivestreams.Compression;
+import io.vertx.ext.reactivestreams.ReactiveReadStream;
+import io.vertx.ext.reactivestreams.ReactiveWriteStream;
+import io.vertx.test.core.TestUtils;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public class CompressionTest extends ReactiveStreamTestBase {
+
+  private static byte[] content() {
+    // Compressible content
+    return TestUtils.randomAlphaString(2000).repeat(50).getBytes();
+  }
+
+  @Test
+  public void testCompressGzip() throws Exception {
+    testCompress(Compression.Format.GZIP);
+  }
+
+  @Test
+  public void testCompressDeflate() throws Exception {
+    testCompress(Compression.Format.DEFLATE);
+  }
+
+  private void testCompress(Compression.Format format) throws Exception {
+    byte[] content = content();
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    WriteStream<Buffer> compressed = Compression.compress(rws, format, 512);
+    for (int i = 0; i < content.length; i += 1000) {
+      compressed.write(Buffer.buffer(content).slice(i, Math.min(content.length, i + 1000)));
+    }
+    compressed.end();
+    assertWaitUntil(() -> subscriber.completed);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < subscriber.buffers.size(); i++) {
+      Buffer chunk = subscriber.buffers.get(i);
+      if (i < subscriber.buffers.size() - 1) {
+        assertEquals(512, chunk.length());
+      }
+      out.write(chunk.getBytes());
+    }
+    assertTrue(out.size() < content.length / 10);
+    InputStream in = new ByteArrayInputStream(out.toByteArray());
+    in = format == Compression.Format.GZIP ? new GZIPInputStream(in) : new InflaterInputStream(in);
+    assertEquals(Buffer.buffer(content), Buffer.buffer(in.readAllBytes()));
+  }
+
+  @Test
+  public void testDecompress() throws Exception {
+    byte[] content = content();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(content);
+    }
+    byte[] compressed = out.toByteArray();
+
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    ReactiveReadStream<Buffer> rrs = ReactiveReadStream.readStream();
+    rws.subscribe(rrs);
+    ReadStream<Buffer> decompressed = Compression.decompress(rrs, Compression.Format.GZIP, 1000);
+    List<Buffer> received = new CopyOnWriteArrayList<>();
+    AtomicBoolean ended = new AtomicBoolean();
+    decompressed.pause();
+    decompressed.handler(received::add);
+    decompressed.endHandler(v -> ended.set(true));
+    for (int i = 0; i < compressed.length; i += 100) {
+      rws.write(Buffer.buffer(compressed).slice(i, Math.min(compressed.length, i + 100)));
+    }
+    decompressed.fetch(3);
+    assertWaitUntil(() -> received.size() == 3);
+    decompressed.resume();
+    assertWaitUntil(() -> rws.stats().pending() == 0);
+    rws.end();
+    assertWaitUntil(ended::get);
+    Buffer result = Buffer.buffer();
+    for (Buffer chunk: received) {
+      result.appendBuffer(chunk);
+    }
+    assertEquals(100, received.size());
+    assertEquals(Buffer.buffer(content), result);
+  }
+
+  @Test
+  public void testDecompressWriteStreamFailure() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    WriteStream<Buffer> decompressed = Compression.decompress(rws, Compression.Format.GZIP, 512);
+    Buffer garbage = Buffer.buffer(TestUtils.randomAlphaString(100));
+    assertTrue(decompressed.write(garbage).failed());
+    assertTrue(decompressed.write(garbage).failed());
+    assertTrue(decompressed.end().failed());
+    // The destination is ended
+    assertTrue(rws.stats().closed());
+  }
+
+  @Test
+  public void testDecompressWriteStreamBackPressure() throws Exception {
+    byte[] content = content();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(content);
+    }
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    rws.setWriteQueueMaxSize(4);
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    WriteStream<Buffer> decompressed = Compression.decompress(rws, Compression.Format.GZIP, 1000);
+    // Expands to 100 chunks, the ones beyond the write queue of the destination are held
+    Future<Void> write = decompressed.write(Buffer.buffer(out.toByteArray()));
+    assertTrue(decompressed.writeQueueFull());
+    assertFalse(write.isComplete());
+    assertEquals(4, rws.stats().pending());
+    Future<Void> end = decompressed.end();
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertWaitUntil(() -> subscriber.completed);
+    assertWaitUntil(() -> write.succeeded() && end.succeeded());
+    Buffer result = Buffer.buffer();
+    subscriber.buffers.forEach(result::appendBuffer);
+    assertEquals(Buffer.buffer(content), result);
+  }
+
+  @Test
+  public void testDecompressReadStreamFailure() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    ReactiveReadStream<Buffer> rrs = ReactiveReadStream.readStream();
+    rws.subscribe(rrs);
+    ReadStream<Buffer> decompressed = Compression.decompress(rrs, Compression.Format.GZIP, 1000);
+    AtomicBoolean failed = new AtomicBoolean();
+    decompressed.exceptionHandler(err -> failed.set(true));
+    decompressed.handler(buffer -> fail());
+    rws.write(Buffer.buffer(TestUtils.randomAlphaString(100)));
+    assertWaitUntil(failed::get);
+  }
+
+  class MySubscriber implements Subscriber<Buffer> {
+
+    final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+    volatile Subscription subscription;
+    volatile boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Buffer buffer) {
+      buffers.add(buffer);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
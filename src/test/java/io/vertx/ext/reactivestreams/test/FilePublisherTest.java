@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.test;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.FilePublisher;
+import io.vertx.test.core.TestUtils;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class FilePublisherTest extends ReactiveStreamTestBase {
+
+  @Test
+  public void testRead() throws Exception {
+    testPublish(false);
+  }
+
+  @Test
+  public void testMemoryMapped() throws Exception {
+    testPublish(true);
+  }
+
+  private void testPublish(boolean memoryMapped) throws Exception {
+    byte[] content = TestUtils.randomByteArray(10 * 1000 + 123);
+    File file = Files.createTempFile("publisher", ".bin").toFile();
+    file.deleteOnExit();
+    Files.write(file.toPath(), content);
+
+    FilePublisher publisher = FilePublisher.publisher(vertx, file.getAbsolutePath())
+      .setChunkSize(1000)
+      .setReadAhead(3)
+      .setMemoryMapped(memoryMapped);
+    MySubscriber subscriber = new MySubscriber();
+    publisher.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+
+    subscriber.subscription.request(4);
+    assertWaitUntil(() -> subscriber.buffers.size() == 4);
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertWaitUntil(() -> subscriber.completed);
+    assertEquals(11, subscriber.buffers.size());
+    Buffer received = Buffer.buffer();
+    for (int i = 0; i < subscriber.buffers.size(); i++) {
+      assertEquals(i < 10 ? 1000 : 123, subscriber.buffers.get(i).length());
+      received.appendBuffer(subscriber.buffers.get(i));
+    }
+    assertEquals(Buffer.buffer(content), received);
+  }
+
+  @Test
+  public void testFrom() throws Exception {
+    byte[] content = TestUtils.randomByteArray(2500);
+    File file = Files.createTempFile("publisher", ".bin").toFile();
+    file.deleteOnExit();
+    Files.write(file.toPath(), content);
+    FilePublisher publisher = FilePublisher.publisher(vertx, file.getAbsolutePath()).setChunkSize(1000);
+    MySubscriber subscriber = new MySubscriber();
+    publisher.from(1200).subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertWaitUntil(() -> subscriber.completed);
+    assertEquals(2, subscriber.buffers.size());
+    Buffer received = Buffer.buffer();
+    subscriber.buffers.forEach(received::appendBuffer);
+    assertEquals(Buffer.buffer(content).slice(1200, 2500), received);
+  }
+
+  @Test
+  public void testMissingFile() {
+    FilePublisher publisher = FilePublisher.publisher(vertx, new File("does_not_exist.bin").getAbsolutePath());
+    MySubscriber subscriber = new MySubscriber();
+    publisher.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.error != null);
+    assertTrue(subscriber.buffers.isEmpty());
+  }
+
+  class MySubscriber implements Subscriber<Buffer> {
+
+    final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+    volatile Subscription subscription;
+    volatile boolean completed;
+    volatile Throwable error;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Buffer buffer) {
+      buffers.add(buffer);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.test;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.Publishers;
+import io.vertx.ext.reactivestreams.ReactiveWriteStream;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PublishersTest extends ReactiveStreamTestBase {
+
+  @Test
+  public void testDelimited() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    MySubscriber<Buffer> subscriber = new MySubscriber<>();
+    Publishers.delimited(rws, "\n", 16).subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    rws.write(Buffer.buffer("ab\ncd"));
+    rws.write(Buffer.buffer("e\n\nfg"));
+    rws.write(Buffer.buffer("h\nij"));
+    subscriber.subscription.request(2);
+    assertWaitUntil(() -> subscriber.items.size() == 2);
+    assertEquals(Arrays.asList(Buffer.buffer("ab"), Buffer.buffer("cde")), subscriber.items);
+    subscriber.subscription.request(10);
+    assertWaitUntil(() -> subscriber.items.size() == 4);
+    assertEquals(Buffer.buffer(), subscriber.items.get(2));
+    assertEquals(Buffer.buffer("fgh"), subscriber.items.get(3));
+    assertWaitUntil(() -> rws.stats().pending() == 0);
+    rws.end();
+    assertWaitUntil(() -> subscriber.completed);
+    // The trailing bytes make the last record
+    assertEquals(5, subscriber.items.size());
+    assertEquals(Buffer.buffer("ij"), subscriber.items.get(4));
+  }
+
+  @Test
+  public void testLengthPrefixed() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    MySubscriber<Buffer> subscriber = new MySubscriber<>();
+    Publishers.lengthPrefixed(rws, 16).subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    Buffer data = Buffer.buffer()
+      .appendInt(3).appendBuffer(Buffer.buffer("abc"))
+      .appendInt(0)
+      .appendInt(5).appendBuffer(Buffer.buffer("defgh"));
+    for (int i = 0; i < data.length(); i += 3) {
+      rws.write(data.slice(i, Math.min(data.length(), i + 3)));
+    }
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertWaitUntil(() -> subscriber.items.size() == 3);
+    assertEquals(Arrays.asList(Buffer.buffer("abc"), Buffer.buffer(), Buffer.buffer("defgh")), subscriber.items);
+  }
+
+  @Test
+  public void testLengthPrefixedTruncated() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    MySubscriber<Buffer> subscriber = new MySubscriber<>();
+    Publishers.lengthPrefixed(rws, 16).subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    rws.write(Buffer.buffer().appendInt(3).appendBuffer(Buffer.buffer("abc")).appendInt(5).appendBuffer(Buffer.buffer("de")));
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertWaitUntil(() -> subscriber.items.size() == 1);
+    assertWaitUntil(() -> rws.stats().pending() == 0);
+    rws.end();
+    assertWaitUntil(() -> subscriber.error != null);
+    assertFalse(subscriber.completed);
+    assertEquals(Buffer.buffer("abc"), subscriber.items.get(0));
+  }
+
+  @Test
+  public void testMaxRecordSize() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    MySubscriber<Buffer> subscriber = new MySubscriber<>();
+    Publisher<Buffer> records = Publishers.delimited(rws, "\n", 4);
+    records.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    rws.write(Buffer.buffer("abcdefgh\n"));
+    subscriber.subscription.request(1);
+    assertWaitUntil(() -> subscriber.error != null);
+    assertTrue(subscriber.items.isEmpty());
+  }
+
+  @Test
+  public void testPublishOn() {
+    Context ctx = vertx.getOrCreateContext();
+    ReactiveWriteStream<Integer> rws = ReactiveWriteStream.writeStream(vertx);
+    List<Context> contexts = new CopyOnWriteArrayList<>();
+    MySubscriber<Integer> subscriber = new MySubscriber<Integer>() {
+      @Override
+      public void onNext(Integer item) {
+        contexts.add(Vertx.currentContext());
+        super.onNext(item);
+      }
+    };
+    Publishers.publishOn(rws, ctx, 4).subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    for (int i = 0; i < 10; i++) {
+      rws.write(i);
+    }
+    // The prefetch bounds the elements taken from the source
+    assertWaitUntil(() -> rws.stats().pending() == 6);
+    subscriber.subscription.request(3);
+    assertWaitUntil(() -> subscriber.items.size() == 3);
+    subscriber.subscription.request(7);
+    assertWaitUntil(() -> subscriber.items.size() == 10);
+    assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toList()), subscriber.items);
+    for (Context context: contexts) {
+      assertSame(ctx, context);
+    }
+    rws.end();
+    assertWaitUntil(() -> subscriber.completed);
+  }
+
+  @Test
+  public void testSubscribeOn() {
+    Context ctx = vertx.getOrCreateContext();
+    List<Context> contexts = new CopyOnWriteArrayList<>();
+    List<Long> requests = new CopyOnWriteArrayList<>();
+    Publisher<Integer> source = s -> {
+      contexts.add(Vertx.currentContext());
+      s.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+          contexts.add(Vertx.currentContext());
+          requests.add(n);
+        }
+        @Override
+        public void cancel() {
+          contexts.add(Vertx.currentContext());
+        }
+      });
+    };
+    MySubscriber<Integer> subscriber = new MySubscriber<>();
+    Publishers.subscribeOn(source, ctx).subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    subscriber.subscription.request(1);
+    subscriber.subscription.request(2);
+    assertWaitUntil(() -> requests.stream().mapToLong(Long::longValue).sum() == 3);
+    subscriber.subscription.cancel();
+    assertWaitUntil(() -> contexts.size() == requests.size() + 2);
+    for (Context context: contexts) {
+      assertSame(ctx, context);
+    }
+  }
+
+  @Test
+  public void testCollect() {
+    // Smaller than the collected size, exact and larger than the maximum size
+    for (int expectedSize: new int[] { 0, 4, 16, Integer.MAX_VALUE }) {
+      ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+      Future<Buffer> collected = Publishers.collect(rws, expectedSize, 16);
+      rws.write(Buffer.buffer("abc"));
+      rws.write(Buffer.buffer("defg"));
+      rws.write(Buffer.buffer("hi"));
+      assertWaitUntil(() -> rws.stats().pending() == 0);
+      rws.end();
+      assertWaitUntil(collected::isComplete);
+      assertEquals(Buffer.buffer("abcdefghi"), collected.result());
+    }
+  }
+
+  @Test
+  public void testCollectMaxSize() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    rws.noSubscriberHandler(v -> cancelled.set(true));
+    Future<Buffer> collected = Publishers.collect(rws, 0, 4);
+    rws.write(Buffer.buffer("abc"));
+    rws.write(Buffer.buffer("de"));
+    assertWaitUntil(collected::isComplete);
+    assertTrue(collected.failed());
+    assertWaitUntil(cancelled::get);
+  }
+
+  @Test
+  public void testCollectList() {
+    for (int expectedSize: new int[] { 3, Integer.MAX_VALUE }) {
+      ReactiveWriteStream<Integer> rws = ReactiveWriteStream.writeStream(vertx);
+      Future<List<Integer>> collected = Publishers.collectList(rws, expectedSize, 3);
+      for (int i = 0; i < 3; i++) {
+        rws.write(i);
+      }
+      assertWaitUntil(() -> rws.stats().pending() == 0);
+      rws.end();
+      assertWaitUntil(collected::isComplete);
+      assertEquals(Arrays.asList(0, 1, 2), collected.result());
+    }
+  }
+
+  @Test
+  public void testCollectListMaxSize() {
+    ReactiveWriteStream<Integer> rws = ReactiveWriteStream.writeStream(vertx);
+    Future<List<Integer>> collected = Publishers.collectList(rws, 3, 3);
+    for (int i = 0; i < 4; i++) {
+      rws.write(i);
+    }
+    assertWaitUntil(collected::isComplete);
+    assertTrue(collected.failed());
+  }
+
+  static class MySubscriber<T> implements Subscriber<T> {
+
+    final List<T> items = new CopyOnWriteArrayList<>();
+    volatile Subscription subscription;
+    volatile boolean completed;
+    volatile Throwable error;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
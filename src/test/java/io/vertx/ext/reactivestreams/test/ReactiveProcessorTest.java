@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.reactivestreams.test;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.ReactiveProcessor;
+import io.vertx.ext.reactivestreams.ReactiveWriteStream;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ReactiveProcessorTest extends ReactiveStreamTestBase {
+
+  @Test
+  public void testMap() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    ReactiveProcessor<Buffer, String> processor = ReactiveProcessor.processor(Buffer::toString);
+    rws.subscribe(processor);
+    PublishersTest.MySubscriber<String> subscriber = new PublishersTest.MySubscriber<>();
+    processor.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    rws.write(Buffer.buffer("a"));
+    rws.write(Buffer.buffer("b"));
+    rws.write(Buffer.buffer("c"));
+    subscriber.subscription.request(2);
+    assertWaitUntil(() -> subscriber.items.size() == 2);
+    assertEquals(Arrays.asList("a", "b"), subscriber.items);
+    assertEquals(1, rws.stats().pending());
+    subscriber.subscription.request(1);
+    assertWaitUntil(() -> subscriber.items.size() == 3);
+    rws.end();
+    assertWaitUntil(() -> subscriber.completed);
+  }
+
+  @Test
+  public void testMapperFailure() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    RuntimeException failure = new RuntimeException();
+    ReactiveProcessor<Buffer, String> processor = ReactiveProcessor.processor(buff -> {
+      throw failure;
+    });
+    rws.subscribe(processor);
+    PublishersTest.MySubscriber<String> subscriber = new PublishersTest.MySubscriber<>();
+    processor.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    rws.write(Buffer.buffer("a"));
+    subscriber.subscription.request(1);
+    assertWaitUntil(() -> subscriber.error != null);
+    assertSame(failure, subscriber.error);
+    assertTrue(rws.stats().subscribers().isEmpty());
+  }
+
+  @Test
+  public void testSingleSubscriber() {
+    ReactiveProcessor<Buffer, String> processor = ReactiveProcessor.processor(Buffer::toString);
+    processor.subscribe(new PublishersTest.MySubscriber<>());
+    PublishersTest.MySubscriber<String> subscriber = new PublishersTest.MySubscriber<>();
+    processor.subscribe(subscriber);
+    assertTrue(subscriber.error instanceof IllegalStateException);
+  }
+}
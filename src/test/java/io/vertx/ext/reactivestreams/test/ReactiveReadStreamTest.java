@@ -16,15 +16,27 @@
 
 package io.vertx.ext.reactivestreams.test;
 
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 import io.vertx.core.VertxException;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.reactivestreams.LatencyHistogram;
 import io.vertx.ext.reactivestreams.ReactiveReadStream;
+import io.vertx.ext.reactivestreams.ReadStreamStats;
+import io.vertx.ext.reactivestreams.StreamTracer;
 import org.junit.Test;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.List;
 
 /**
@@ -228,6 +240,341 @@ public class ReactiveReadStreamTest extends ReactiveStreamTestBase {
     }
   }
 
+  @Test
+  public void testIdleFootprint() throws Exception {
+    ReactiveReadStream<Buffer> rrs = ReactiveReadStream.readStream();
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rrs);
+    rrs.handler(buff -> {});
+    // An idle stream does not allocate its queue nor its sampling state
+    assertNull(fieldValue(rrs, "pending"));
+    assertNull(fieldValue(rrs, "sampler"));
+    rrs.pause();
+    publisher.subscriber.onNext(createRandomBuffers(1).get(0));
+    assertNotNull(fieldValue(rrs, "pending"));
+  }
+
+  @Test
+  public void testPartition() throws Exception {
+    ReactiveReadStream<Buffer> rrs = ReactiveReadStream.readStream(16);
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rrs);
+    Context ctx0 = vertx.getOrCreateContext();
+    Context ctx1 = vertx.getOrCreateContext();
+    // 'b' routes to partition 0 and 'a' to partition 1
+    List<ReadStream<Buffer>> partitions = ReactiveReadStream.partition(rrs, buff -> (char) buff.getByte(0), Arrays.asList(ctx0, ctx1), 2);
+    assertEquals(2, partitions.size());
+    List<String> received0 = new CopyOnWriteArrayList<>();
+    List<String> received1 = new CopyOnWriteArrayList<>();
+    partitions.get(0).pause();
+    partitions.get(0).handler(buff -> {
+      assertSame(ctx0, Vertx.currentContext());
+      received0.add(buff.toString());
+    });
+    partitions.get(1).handler(buff -> {
+      assertSame(ctx1, Vertx.currentContext());
+      received1.add(buff.toString());
+    });
+    publisher.subscriber.onNext(Buffer.buffer("a1"));
+    publisher.subscriber.onNext(Buffer.buffer("b1"));
+    publisher.subscriber.onNext(Buffer.buffer("b2"));
+    // Partition 0 is full, the source is paused
+    publisher.subscriber.onNext(Buffer.buffer("a2"));
+    assertWaitUntil(() -> received1.size() == 1);
+    assertEquals(Collections.singletonList("a1"), received1);
+    assertTrue(received0.isEmpty());
+    partitions.get(0).fetch(1);
+    assertWaitUntil(() -> received1.size() == 2);
+    assertEquals(Collections.singletonList("b1"), received0);
+    assertEquals(Arrays.asList("a1", "a2"), received1);
+  }
+
+  @Test
+  public void testCoalesce() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.coalescingReadStream(8, 3);
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    List<Buffer> received = new ArrayList<>();
+    rws.handler(received::add);
+    assertEquals(1, publisher.subscription.requestedTimes);
+    assertEquals(8, publisher.subscription.requested);
+    rws.pause();
+    List<Buffer> buffers = createRandomBuffers(8);
+    for (Buffer buffer: buffers) {
+      publisher.subscriber.onNext(buffer);
+    }
+    assertEquals(0, received.size());
+    rws.resume();
+    assertEquals(3, received.size());
+    assertEquals(buffers.get(0).copy().appendBuffer(buffers.get(1)).appendBuffer(buffers.get(2)), received.get(0));
+    assertEquals(buffers.get(3).copy().appendBuffer(buffers.get(4)).appendBuffer(buffers.get(5)), received.get(1));
+    assertEquals(buffers.get(6).copy().appendBuffer(buffers.get(7)), received.get(2));
+    assertEquals(2, publisher.subscription.requestedTimes);
+    assertEquals(16, publisher.subscription.requested);
+    Buffer buffer = createRandomBuffers(1).get(0);
+    publisher.subscriber.onNext(buffer);
+    assertEquals(4, received.size());
+    assertSame(buffer, received.get(3));
+  }
+
+  @Test
+  public void testTracer() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream(2);
+    List<String> events = new ArrayList<>();
+    rws.tracer((stream, event, value, timestamp) -> {
+      assertSame(rws, stream);
+      events.add(event + ":" + value);
+    });
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    rws.handler(buff -> {});
+    rws.pause();
+    for (Buffer buffer: createRandomBuffers(2)) {
+      publisher.subscriber.onNext(buffer);
+    }
+    rws.fetch(1);
+    assertEquals(Arrays.asList("REQUEST:2", "PAUSE:0", "RESUME:1", "DELIVER:1"), events);
+    rws.tracer(null);
+    rws.fetch(1);
+    assertEquals(4, events.size());
+  }
+
+  @Test
+  public void testStats() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream(4);
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    rws.handler(buff -> {});
+    ReadStreamStats stats = rws.stats();
+    assertEquals(0, stats.pending());
+    assertEquals(4, stats.requested());
+    assertEquals(Long.MAX_VALUE, stats.demand());
+    assertFalse(stats.paused());
+    publisher.subscriber.onNext(createRandomBuffers(1).get(0));
+    rws.pause();
+    publisher.subscriber.onNext(createRandomBuffers(1).get(0));
+    stats = rws.stats();
+    assertEquals(1, stats.pending());
+    assertEquals(3, stats.requested());
+    assertEquals(1, stats.delivered());
+    assertTrue(stats.paused());
+    rws.fetch(2);
+    stats = rws.stats();
+    assertEquals(0, stats.pending());
+    assertEquals(2, stats.requested());
+    assertEquals(2, stats.delivered());
+    assertEquals(1, stats.demand());
+  }
+
+  @Test
+  public void testLatencyHistogram() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream();
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    LatencyHistogram histogram = new LatencyHistogram();
+    rws.latencyHistogram(histogram, 1);
+    rws.handler(buff -> {});
+    rws.pause();
+    // The second element is received while the first one is timed
+    publisher.subscriber.onNext(createRandomBuffers(1).get(0));
+    publisher.subscriber.onNext(createRandomBuffers(1).get(0));
+    Thread.sleep(20);
+    rws.resume();
+    assertEquals(1, histogram.count());
+    assertTrue(histogram.max() >= TimeUnit.MILLISECONDS.toNanos(20));
+    publisher.subscriber.onNext(createRandomBuffers(1).get(0));
+    assertEquals(2, histogram.count());
+    assertTrue(histogram.valueAtPercentile(50) < TimeUnit.MILLISECONDS.toNanos(20));
+  }
+
+  @Test
+  public void testReleaseHandler() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream();
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    List<Buffer> received = new ArrayList<>();
+    List<Buffer> released = new ArrayList<>();
+    rws.releaseHandler(released::add);
+    rws.handler(received::add);
+    List<Buffer> buffers = createRandomBuffers(2);
+    publisher.subscriber.onNext(buffers.get(0));
+    rws.handler(null);
+    publisher.subscriber.onNext(buffers.get(1));
+    assertEquals(Collections.singletonList(buffers.get(0)), received);
+    assertEquals(Collections.singletonList(buffers.get(1)), released);
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    MyPublisher publisher1 = new MyPublisher();
+    MyPublisher publisher2 = new MyPublisher();
+    ReadStream<Buffer> merged = ReactiveReadStream.merge(Arrays.asList(publisher1, publisher2), Arrays.asList(2, 1), 4);
+    assertEquals(4, publisher1.subscription.requested);
+    assertEquals(4, publisher2.subscription.requested);
+    List<Buffer> received = new ArrayList<>();
+    AtomicBoolean ended = new AtomicBoolean();
+    merged.endHandler(v -> ended.set(true));
+    merged.pause();
+    merged.handler(received::add);
+    List<Buffer> buffers1 = createRandomBuffers(4);
+    List<Buffer> buffers2 = createRandomBuffers(4);
+    for (int i = 0; i < 4; i++) {
+      publisher1.subscriber.onNext(buffers1.get(i));
+      publisher2.subscriber.onNext(buffers2.get(i));
+    }
+    assertEquals(0, received.size());
+    merged.fetch(3);
+    assertEquals(Arrays.asList(buffers1.get(0), buffers1.get(1), buffers2.get(0)), received);
+    merged.resume();
+    assertEquals(Arrays.asList(buffers1.get(0), buffers1.get(1), buffers2.get(0), buffers1.get(2), buffers1.get(3),
+      buffers2.get(1), buffers2.get(2), buffers2.get(3)), received);
+    assertEquals(7, publisher1.subscription.requested);
+    assertEquals(7, publisher2.subscription.requested);
+    publisher1.subscriber.onComplete();
+    assertFalse(ended.get());
+    Buffer last = createRandomBuffers(1).get(0);
+    publisher2.subscriber.onNext(last);
+    publisher2.subscriber.onComplete();
+    assertSame(last, received.get(8));
+    assertTrue(ended.get());
+  }
+
+  @Test
+  public void testMergeDemandSplitByWeight() throws Exception {
+    MyPublisher publisher1 = new MyPublisher();
+    MyPublisher publisher2 = new MyPublisher();
+    ReadStream<Buffer> merged = ReactiveReadStream.merge(Arrays.asList(publisher1, publisher2), Arrays.asList(3, 1), 4);
+    List<Buffer> received = new ArrayList<>();
+    merged.pause();
+    merged.handler(received::add);
+    for (Buffer buffer: createRandomBuffers(4)) {
+      publisher1.subscriber.onNext(buffer);
+    }
+    for (Buffer buffer: createRandomBuffers(4)) {
+      publisher2.subscriber.onNext(buffer);
+    }
+    // Nothing is requested while paused
+    assertEquals(4, publisher1.subscription.requested);
+    assertEquals(4, publisher2.subscription.requested);
+    merged.fetch(12);
+    assertEquals(8, received.size());
+    // The 4 elements still demanded are split by weight
+    assertEquals(7, publisher1.subscription.requested);
+    assertEquals(5, publisher2.subscription.requested);
+  }
+
+  @Test
+  public void testMergeFailureOnce() throws Exception {
+    MyPublisher publisher1 = new MyPublisher();
+    // Subscribes its subscriber later
+    List<Subscriber<? super Buffer>> late = new ArrayList<>();
+    Publisher<Buffer> publisher2 = late::add;
+    ReadStream<Buffer> merged = ReactiveReadStream.merge(Arrays.asList(publisher1, publisher2), 4);
+    AtomicInteger failures = new AtomicInteger();
+    merged.exceptionHandler(err -> failures.incrementAndGet());
+    merged.handler(buff -> {});
+    publisher1.subscriber.onError(new VertxException("foo"));
+    MySubscription subscription = new MySubscription();
+    late.get(0).onSubscribe(subscription);
+    assertEquals(0, subscription.requested);
+    late.get(0).onError(new VertxException("bar"));
+    assertEquals(1, failures.get());
+  }
+
+  @Test
+  public void testConcat() throws Exception {
+    MyPublisher publisher1 = new MyPublisher();
+    MyPublisher publisher2 = new MyPublisher();
+    MyPublisher publisher3 = new MyPublisher();
+    ReadStream<Buffer> concat = ReactiveReadStream.concat(Arrays.asList(publisher1, publisher2, publisher3), 2, 4);
+    assertEquals(4, publisher1.subscription.requested);
+    assertEquals(4, publisher2.subscription.requested);
+    assertNull(publisher3.subscriber);
+    List<Buffer> received = new ArrayList<>();
+    AtomicBoolean ended = new AtomicBoolean();
+    concat.endHandler(v -> ended.set(true));
+    concat.handler(received::add);
+    List<Buffer> buffers1 = createRandomBuffers(4);
+    List<Buffer> buffers2 = createRandomBuffers(2);
+    // The next publisher delivers ahead, its elements are queued until the current one completes
+    publisher2.subscriber.onNext(buffers2.get(0));
+    publisher2.subscriber.onNext(buffers2.get(1));
+    assertEquals(0, received.size());
+    for (Buffer buffer: buffers1) {
+      publisher1.subscriber.onNext(buffer);
+    }
+    assertEquals(buffers1, received);
+    assertEquals(7, publisher1.subscription.requested);
+    assertEquals(4, publisher2.subscription.requested);
+    publisher1.subscriber.onComplete();
+    assertEquals(6, received.size());
+    assertEquals(buffers2, received.subList(4, 6));
+    assertEquals(4, publisher3.subscription.requested);
+    publisher2.subscriber.onComplete();
+    assertFalse(ended.get());
+    Buffer last = createRandomBuffers(1).get(0);
+    publisher3.subscriber.onNext(last);
+    publisher3.subscriber.onComplete();
+    assertSame(last, received.get(6));
+    assertTrue(ended.get());
+  }
+
+  @Test
+  public void testConcatFailureOnce() throws Exception {
+    MyPublisher publisher1 = new MyPublisher();
+    // Subscribes its subscriber later
+    List<Subscriber<? super Buffer>> late = new ArrayList<>();
+    Publisher<Buffer> publisher2 = late::add;
+    ReadStream<Buffer> concat = ReactiveReadStream.concat(Arrays.asList(publisher1, publisher2), 2, 4);
+    AtomicInteger failures = new AtomicInteger();
+    concat.exceptionHandler(err -> failures.incrementAndGet());
+    concat.handler(buff -> {});
+    publisher1.subscriber.onError(new VertxException("foo"));
+    MySubscription subscription = new MySubscription();
+    late.get(0).onSubscribe(subscription);
+    assertEquals(0, subscription.requested);
+    late.get(0).onError(new VertxException("bar"));
+    assertEquals(1, failures.get());
+  }
+
+  @Test
+  public void testPrefetch() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream(4, 2);
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    assertEquals(2, publisher.subscription.requested);
+    List<Buffer> buffers = createRandomBuffers(2);
+    publisher.subscriber.onNext(buffers.get(0));
+    publisher.subscriber.onNext(buffers.get(1));
+    AtomicBoolean ended = new AtomicBoolean();
+    rws.endHandler(v -> ended.set(true));
+    publisher.subscriber.onComplete();
+    // The prefetched elements are held until the handler is set, then the stream ends
+    assertFalse(ended.get());
+    assertEquals(2, rws.stats().pending());
+    List<Buffer> received = new ArrayList<>();
+    rws.handler(buff -> {
+      assertFalse(ended.get());
+      received.add(buff);
+    });
+    assertEquals(buffers, received);
+    assertTrue(ended.get());
+    assertEquals(1, publisher.subscription.requestedTimes);
+  }
+
+  @Test
+  public void testPrefetchBatches() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream(4, 1);
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    publisher.subscriber.onNext(createRandomBuffers(1).get(0));
+    List<Buffer> received = new ArrayList<>();
+    rws.handler(received::add);
+    assertEquals(1, received.size());
+    assertEquals(5, publisher.subscription.requested);
+    assertEquals(2, publisher.subscription.requestedTimes);
+  }
+
   @Test
   public void testOnError() throws Exception {
     ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream();
@@ -242,6 +589,26 @@ public class ReactiveReadStreamTest extends ReactiveStreamTestBase {
     await();
   }
 
+  @Test
+  public void testOnErrorWhilePaused() throws Exception {
+    ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream();
+    MyPublisher publisher = new MyPublisher();
+    publisher.subscribe(rws);
+    List<Buffer> received = new ArrayList<>();
+    rws.handler(received::add);
+    rws.pause();
+    Buffer buffer = createRandomBuffers(1).get(0);
+    publisher.subscriber.onNext(buffer);
+    AtomicBoolean failed = new AtomicBoolean();
+    rws.exceptionHandler(t -> failed.set(true));
+    publisher.subscriber.onError(new VertxException("foo"));
+    // The failure does not wait for the pending elements
+    assertTrue(failed.get());
+    assertEquals(1, rws.stats().pending());
+    rws.resume();
+    assertEquals(Collections.singletonList(buffer), received);
+  }
+
   @Test
   public void testOnComplete() throws Exception {
     ReactiveReadStream<Buffer> rws = ReactiveReadStream.readStream();
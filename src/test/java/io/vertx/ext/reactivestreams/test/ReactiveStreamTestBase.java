@@ -20,6 +20,7 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.test.core.TestUtils;
 import io.vertx.test.core.VertxTestBase;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,4 +36,19 @@ public class ReactiveStreamTestBase extends VertxTestBase {
     }
     return buffers;
   }
+
+  /**
+   * @return the value of the field {@code name} declared by the class of {@code obj} or one of its super classes
+   */
+  static Object fieldValue(Object obj, String name) throws Exception {
+    for (Class<?> clazz = obj.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+      try {
+        Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(obj);
+      } catch (NoSuchFieldException ignore) {
+      }
+    }
+    throw new NoSuchFieldException(name);
+  }
 }
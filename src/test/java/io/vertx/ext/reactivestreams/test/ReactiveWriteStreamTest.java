@@ -16,18 +16,34 @@
 
 package io.vertx.ext.reactivestreams.test;
 
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.reactivestreams.DispatchMode;
+import io.vertx.ext.reactivestreams.LatencyHistogram;
 import io.vertx.ext.reactivestreams.ReactiveWriteStream;
+import io.vertx.ext.reactivestreams.ResumableWriteStream;
+import io.vertx.ext.reactivestreams.StreamTracer;
+import io.vertx.ext.reactivestreams.WriteStreamStats;
 import io.vertx.test.core.TestUtils;
 import org.junit.Test;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -348,6 +364,517 @@ public class ReactiveWriteStreamTest extends ReactiveStreamTestBase {
     waitUntil(f1.future()::succeeded);
   }
 
+  @Test
+  public void testOverflow() throws Exception {
+    File dir = Files.createTempDirectory("overflow").toFile();
+    // Files of the directory are left untouched
+    File existing = new File(dir, "existing");
+    Files.write(existing.toPath(), new byte[10]);
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx, dir.getAbsolutePath(), 2);
+    rws.setWriteQueueMaxSize(8);
+
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+
+    List<Buffer> buffers = createRandomBuffers(10);
+    for (int i = 0; i < 7; i++) {
+      rws.write(buffers.get(i));
+    }
+    assertFalse(rws.writeQueueFull());
+    Future<Void> spilled = rws.write(buffers.get(7));
+    assertTrue(rws.writeQueueFull());
+    // Completed once stored by a worker
+    assertWaitUntil(spilled::succeeded);
+    File[] files = dir.listFiles((d, name) -> !name.equals("existing"));
+    assertEquals(1, files.length);
+    File file = files[0];
+    // Buffers 2 to 7 have been spilled
+    assertTrue(file.length() > 0);
+
+    subscriber.subscription.request(3);
+    assertWaitUntil(() -> subscriber.buffers.size() == 3);
+    assertFalse(rws.writeQueueFull());
+    rws.write(buffers.get(8));
+    rws.write(buffers.get(9));
+
+    subscriber.subscription.request(7);
+    assertWaitUntil(() -> subscriber.buffers.size() == 10);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(buffers.get(i), subscriber.buffers.get(i));
+    }
+    assertEquals(0, file.length());
+
+    rws.close();
+    assertWaitUntil(() -> !file.exists());
+    assertEquals(10, existing.length());
+  }
+
+  @Test
+  public void testTracer() throws Exception {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    rws.setWriteQueueMaxSize(2);
+    List<StreamTracer.Event> events = new CopyOnWriteArrayList<>();
+    rws.tracer((stream, event, value, timestamp) -> events.add(event));
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    for (Buffer buffer: createRandomBuffers(2)) {
+      rws.write(buffer);
+    }
+    rws.drainHandler(v -> {});
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    assertEquals(Arrays.asList(StreamTracer.Event.PAUSE, StreamTracer.Event.REQUEST, StreamTracer.Event.DELIVER,
+      StreamTracer.Event.DRAIN, StreamTracer.Event.CANCEL), events);
+  }
+
+  @Test
+  public void testRequestAfterSendFailure() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    AtomicBoolean thrown = new AtomicBoolean();
+    rws.tracer((stream, event, value, timestamp) -> {
+      if (event == StreamTracer.Event.DELIVER && thrown.compareAndSet(false, true)) {
+        throw new RuntimeException();
+      }
+    });
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    List<Buffer> buffers = createRandomBuffers(2);
+    buffers.forEach(rws::write);
+    try {
+      subscriber.subscription.request(1);
+      fail();
+    } catch (RuntimeException ignore) {
+    }
+    subscriber.subscription.request(1);
+    assertWaitUntil(() -> subscriber.buffers.size() == 2);
+    assertEquals(buffers, subscriber.buffers);
+  }
+
+  @Test
+  public void testStats() throws Exception {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    MySubscriber subscriber1 = new MySubscriber();
+    rws.subscribe(subscriber1);
+    MySubscriber subscriber2 = new MySubscriber();
+    rws.subscribe(subscriber2);
+    assertWaitUntil(() -> subscriber1.subscription != null && subscriber2.subscription != null);
+    for (Buffer buffer: createRandomBuffers(3)) {
+      rws.write(buffer);
+    }
+    subscriber1.subscription.request(5);
+    subscriber2.subscription.request(1);
+    WriteStreamStats stats = rws.stats();
+    assertEquals(2, stats.pending());
+    assertEquals(1, stats.delivered());
+    assertFalse(stats.closed());
+    assertEquals(2, stats.subscribers().size());
+    long requested = 0;
+    for (WriteStreamStats.SubscriberStats subscriberStats: stats.subscribers()) {
+      assertEquals(1, subscriberStats.delivered());
+      requested += subscriberStats.requested();
+    }
+    assertEquals(4, requested);
+    rws.close();
+    stats = rws.stats();
+    assertEquals(0, stats.pending());
+    assertTrue(stats.closed());
+    assertTrue(stats.subscribers().isEmpty());
+  }
+
+  @Test
+  public void testLatencyHistogram() throws Exception {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    LatencyHistogram histogram = new LatencyHistogram();
+    rws.latencyHistogram(histogram, 2);
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    for (Buffer buffer: createRandomBuffers(4)) {
+      rws.write(buffer);
+    }
+    Thread.sleep(20);
+    subscriber.subscription.request(4);
+    assertWaitUntil(() -> subscriber.buffers.size() == 4);
+    assertWaitUntil(() -> histogram.count() == 2);
+    assertTrue(histogram.valueAtPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(20));
+  }
+
+  @Test
+  public void testNoSubscriberHandler() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    AtomicBoolean called = new AtomicBoolean();
+    rws.noSubscriberHandler(v -> called.set(true));
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    Future<Void> pending = rws.write(createRandomBuffers(1).get(0));
+    subscriber.subscription.cancel();
+    assertWaitUntil(called::get);
+    assertTrue(pending.failed());
+    assertTrue(rws.write(createRandomBuffers(1).get(0)).failed());
+    MySubscriber late = new MySubscriber();
+    rws.subscribe(late);
+    assertWaitUntil(() -> late.subscription != null);
+    late.subscription.request(1);
+    Buffer buffer = createRandomBuffers(1).get(0);
+    rws.write(buffer);
+    assertWaitUntil(() -> late.buffers.size() == 1);
+    assertSame(buffer, late.buffers.get(0));
+  }
+
+  @Test
+  public void testNoSubscriberTimeout() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    AtomicBoolean called = new AtomicBoolean();
+    rws.setNoSubscriberTimeout(200);
+    rws.noSubscriberHandler(v -> called.set(true));
+    MySubscriber subscriber1 = new MySubscriber();
+    rws.subscribe(subscriber1);
+    assertWaitUntil(() -> subscriber1.subscription != null);
+    subscriber1.subscription.cancel();
+    MySubscriber subscriber2 = new MySubscriber();
+    rws.subscribe(subscriber2);
+    assertWaitUntil(() -> subscriber2.subscription != null);
+    Future<Void> write = rws.write(createRandomBuffers(1).get(0));
+    vertx.setTimer(400, id -> {
+      assertFalse(called.get());
+      assertFalse(write.isComplete());
+      subscriber2.subscription.cancel();
+    });
+    assertWaitUntil(called::get);
+    assertTrue(write.failed());
+  }
+
+  @Test
+  public void testNoSubscriberTimeoutOnContext() {
+    Context context = vertx.getOrCreateContext();
+    AtomicReference<ReactiveWriteStream<Buffer>> ref = new AtomicReference<>();
+    context.runOnContext(v -> ref.set(ReactiveWriteStream.writeStream(vertx)));
+    assertWaitUntil(() -> ref.get() != null);
+    ReactiveWriteStream<Buffer> rws = ref.get();
+    AtomicReference<Context> called = new AtomicReference<>();
+    rws.setNoSubscriberTimeout(50);
+    rws.noSubscriberHandler(v -> called.set(Vertx.currentContext()));
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    // Cancelled from a non Vert.x thread, the timer still fires on the stream context
+    subscriber.subscription.cancel();
+    assertWaitUntil(() -> called.get() != null);
+    assertSame(context, called.get());
+  }
+
+  @Test
+  public void testReleaseHandler() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    List<Buffer> released = new CopyOnWriteArrayList<>();
+    rws.releaseHandler(released::add);
+    rws.setReleaseAfterDelivery(true);
+    MySubscriber subscriber = new MySubscriber() {
+      @Override
+      public void onNext(Buffer buffer) {
+        assertFalse(released.contains(buffer));
+        super.onNext(buffer);
+      }
+    };
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    List<Buffer> buffers = createRandomBuffers(3);
+    for (Buffer buffer: buffers) {
+      rws.write(buffer);
+    }
+    subscriber.subscription.request(1);
+    assertWaitUntil(() -> released.size() == 1);
+    assertSame(buffers.get(0), released.get(0));
+    rws.close();
+    assertEquals(buffers, released);
+  }
+
+  @Test
+  public void testDeliveryExecutor() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+      rws.setDeliveryExecutor(executor);
+      List<Buffer> released = new CopyOnWriteArrayList<>();
+      rws.releaseHandler(released::add);
+      rws.setReleaseAfterDelivery(true);
+      AtomicBoolean onContext = new AtomicBoolean();
+      MySubscriber subscriber = new MySubscriber() {
+        @Override
+        public void onNext(Buffer buffer) {
+          onContext.compareAndSet(false, Context.isOnVertxThread());
+          try {
+            // Blocking is fine
+            Thread.sleep(10);
+          } catch (InterruptedException e) {
+            fail(e.getMessage());
+          }
+          assertFalse(released.contains(buffer));
+          super.onNext(buffer);
+        }
+      };
+      rws.subscribe(subscriber);
+      assertWaitUntil(() -> subscriber.subscription != null);
+      List<Buffer> buffers = createRandomBuffers(10);
+      for (Buffer buffer: buffers) {
+        rws.write(buffer);
+      }
+      subscriber.subscription.request(4);
+      assertWaitUntil(() -> released.size() == 4);
+      assertEquals(buffers.subList(0, 4), subscriber.buffers);
+      subscriber.subscription.request(6);
+      assertWaitUntil(() -> released.size() == 10);
+      assertEquals(buffers, subscriber.buffers);
+      assertEquals(buffers, released);
+      assertFalse(onContext.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testDeliveryExecutorRejection() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    rws.setDeliveryExecutor(executor);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    MySubscriber subscriber = new MySubscriber() {
+      @Override
+      public void onError(Throwable throwable) {
+        error.set(throwable);
+      }
+    };
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> error.get() != null);
+    assertTrue(error.get() instanceof RejectedExecutionException);
+    assertTrue(rws.stats().subscribers().isEmpty());
+  }
+
+  @Test
+  public void testConcurrentRequests() throws Exception {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    rws.setWriteQueueMaxSize(1000);
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    List<Buffer> buffers = createRandomBuffers(1000);
+    for (Buffer buffer: buffers) {
+      rws.write(buffer);
+    }
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 250; j++) {
+          subscriber.subscription.request(1);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread: threads) {
+      thread.join();
+    }
+    assertWaitUntil(() -> subscriber.buffers.size() == 1000);
+    assertEquals(buffers, subscriber.buffers);
+    assertEquals(0, rws.stats().pending());
+  }
+
+  @Test
+  public void testRequestInOnNext() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    MySubscriber subscriber = new MySubscriber() {
+      @Override
+      public void onNext(Buffer buffer) {
+        super.onNext(buffer);
+        subscription.request(1);
+      }
+    };
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    List<Buffer> buffers = createRandomBuffers(10);
+    for (Buffer buffer: buffers) {
+      rws.write(buffer);
+    }
+    subscriber.subscription.request(1);
+    assertWaitUntil(() -> subscriber.buffers.size() == 10);
+    assertEquals(buffers, subscriber.buffers);
+  }
+
+  @Test
+  public void testRoundRobinDispatch() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    rws.setDispatchMode(DispatchMode.ROUND_ROBIN);
+    MySubscriber subscriber1 = new MySubscriber();
+    MySubscriber subscriber2 = new MySubscriber();
+    rws.subscribe(subscriber1);
+    rws.subscribe(subscriber2);
+    assertWaitUntil(() -> subscriber1.subscription != null && subscriber2.subscription != null);
+    subscriber1.subscription.request(10);
+    subscriber2.subscription.request(10);
+    List<Buffer> buffers = createRandomBuffers(10);
+    for (Buffer buffer: buffers) {
+      rws.write(buffer);
+    }
+    assertWaitUntil(() -> subscriber1.buffers.size() + subscriber2.buffers.size() == 10);
+    assertEquals(5, subscriber1.buffers.size());
+    assertEquals(5, subscriber2.buffers.size());
+    for (int i = 0; i < 5; i++) {
+      assertSame(buffers.get(2 * i), subscriber1.buffers.get(i));
+      assertSame(buffers.get(2 * i + 1), subscriber2.buffers.get(i));
+    }
+  }
+
+  @Test
+  public void testMostDemandDispatch() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    rws.setDispatchMode(DispatchMode.MOST_DEMAND);
+    MySubscriber subscriber1 = new MySubscriber();
+    MySubscriber subscriber2 = new MySubscriber();
+    rws.subscribe(subscriber1);
+    rws.subscribe(subscriber2);
+    assertWaitUntil(() -> subscriber1.subscription != null && subscriber2.subscription != null);
+    List<Buffer> buffers = createRandomBuffers(6);
+    for (Buffer buffer: buffers) {
+      rws.write(buffer);
+    }
+    subscriber1.subscription.request(3);
+    assertWaitUntil(() -> subscriber1.buffers.size() == 3);
+    subscriber2.subscription.request(1);
+    assertWaitUntil(() -> subscriber2.buffers.size() == 1);
+    assertEquals(buffers.subList(0, 3), subscriber1.buffers);
+    assertSame(buffers.get(3), subscriber2.buffers.get(0));
+    assertEquals(2, rws.stats().pending());
+  }
+
+  @Test
+  public void testConflation() {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    rws.setWriteQueueMaxSize(2);
+    rws.setConflationKey(buff -> buff.getByte(0));
+    List<Buffer> released = new CopyOnWriteArrayList<>();
+    rws.releaseHandler(released::add);
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    Buffer a1 = Buffer.buffer("a1");
+    Buffer b1 = Buffer.buffer("b1");
+    Buffer a2 = Buffer.buffer("a2");
+    Buffer a3 = Buffer.buffer("a3");
+    Buffer c1 = Buffer.buffer("c1");
+    for (Buffer buffer: Arrays.asList(a1, b1, a2, a3, c1)) {
+      assertTrue(rws.write(buffer).succeeded());
+    }
+    assertFalse(rws.writeQueueFull());
+    assertEquals(3, rws.stats().pending());
+    assertEquals(Arrays.asList(a1, a2), released);
+    subscriber.subscription.request(10);
+    assertWaitUntil(() -> subscriber.buffers.size() == 3);
+    assertEquals(Arrays.asList(a3, b1, c1), subscriber.buffers);
+    Buffer a4 = Buffer.buffer("a4");
+    rws.write(a4);
+    assertWaitUntil(() -> subscriber.buffers.size() == 4);
+    assertSame(a4, subscriber.buffers.get(3));
+  }
+
+  @Test
+  public void testResume() {
+    ResumableWriteStream rws = ResumableWriteStream.writeStream(vertx, 200);
+    List<Buffer> buffers = createRandomBuffers(5);
+    Buffer content = Buffer.buffer();
+    for (Buffer buffer: buffers) {
+      content.appendBuffer(buffer);
+      rws.write(buffer);
+    }
+    assertEquals(500, rws.offset());
+    MySubscriber subscriber1 = new MySubscriber();
+    rws.subscribe(subscriber1);
+    assertWaitUntil(() -> subscriber1.subscription != null);
+    subscriber1.subscription.request(3);
+    assertWaitUntil(() -> subscriber1.buffers.size() == 3);
+    // Consumer failure after 150 bytes
+    subscriber1.subscription.cancel();
+    MySubscriber subscriber2 = new MySubscriber();
+    rws.from(150).subscribe(subscriber2);
+    assertWaitUntil(() -> subscriber2.subscription != null);
+    subscriber2.subscription.request(10);
+    assertWaitUntil(() -> subscriber2.buffers.size() == 4);
+    Buffer received = Buffer.buffer();
+    subscriber2.buffers.forEach(received::appendBuffer);
+    assertEquals(content.slice(150, 500), received);
+    AtomicBoolean failed = new AtomicBoolean();
+    rws.from(50).subscribe(new MySubscriber() {
+      @Override
+      public void onError(Throwable throwable) {
+        failed.set(true);
+      }
+    });
+    assertWaitUntil(failed::get);
+  }
+
+  @Test
+  public void testResumeOffsetWhenAbandoned() {
+    ResumableWriteStream rws = ResumableWriteStream.writeStream(vertx, 200);
+    AtomicBoolean called = new AtomicBoolean();
+    rws.noSubscriberHandler(v -> called.set(true));
+    MySubscriber subscriber = new MySubscriber();
+    rws.subscribe(subscriber);
+    assertWaitUntil(() -> subscriber.subscription != null);
+    subscriber.subscription.request(1);
+    rws.write(createRandomBuffers(1).get(0));
+    assertWaitUntil(() -> subscriber.buffers.size() == 1);
+    // Dropped when the stream is abandoned
+    rws.write(createRandomBuffers(1).get(0));
+    subscriber.subscription.cancel();
+    assertWaitUntil(called::get);
+    assertTrue(rws.write(createRandomBuffers(1).get(0)).failed());
+    assertEquals(100, rws.offset());
+    MySubscriber resumed = new MySubscriber();
+    rws.from(rws.offset()).subscribe(resumed);
+    assertWaitUntil(() -> resumed.subscription != null);
+    resumed.subscription.request(1);
+    Buffer buffer = createRandomBuffers(1).get(0);
+    rws.write(buffer);
+    assertWaitUntil(() -> resumed.buffers.size() == 1);
+    assertSame(buffer, resumed.buffers.get(0));
+    assertEquals(200, rws.offset());
+  }
+
+  @Test
+  public void testResumeRejectsSettings() {
+    ResumableWriteStream rws = ResumableWriteStream.writeStream(vertx, 200);
+    try {
+      rws.setReleaseAfterDelivery(true);
+      fail();
+    } catch (IllegalStateException ignore) {
+    }
+    try {
+      rws.setDeliveryExecutor(Runnable::run);
+      fail();
+    } catch (IllegalStateException ignore) {
+    }
+    try {
+      rws.setConflationKey(Buffer::length);
+      fail();
+    } catch (IllegalStateException ignore) {
+    }
+  }
+
+  @Test
+  public void testIdleFootprint() throws Exception {
+    ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
+    // An idle stream shares the empty subscription list and does not allocate its queues nor its sampling state
+    assertSame(Collections.emptyList(), fieldValue(rws, "subscriptions"));
+    assertNull(fieldValue(rws, "pending"));
+    assertNull(fieldValue(rws, "conflated"));
+    assertNull(fieldValue(rws, "sampler"));
+    rws.write(createRandomBuffers(1).get(0));
+    assertNotNull(fieldValue(rws, "pending"));
+  }
+
   @Test
   public void testWriteHandlerFailure() {
     ReactiveWriteStream<Buffer> rws = ReactiveWriteStream.writeStream(vertx);
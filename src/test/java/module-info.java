@@ -2,6 +2,8 @@ module io.vertx.reactivestreams.tests {
   requires io.vertx.core;
   requires io.vertx.core.tests;
   requires io.vertx.reactivestreams;
+  requires java.management;
+  requires jdk.management;
   requires junit;
   requires org.reactivestreams;
   requires org.reactivestreams.tck;